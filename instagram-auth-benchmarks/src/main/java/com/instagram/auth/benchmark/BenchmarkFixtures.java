@@ -0,0 +1,112 @@
+package com.instagram.auth.benchmark;
+
+import com.instagram.auth.config.JwtConfig;
+import com.instagram.auth.config.JwtKeyManager;
+import com.instagram.auth.config.JwtTokenProvider;
+import com.instagram.auth.config.JwtVerifiedTokenCache;
+import com.instagram.auth.domain.UserSummary;
+import com.instagram.auth.entity.InstagramUserDetails;
+import com.instagram.auth.entity.Profile;
+import com.instagram.auth.entity.Role;
+import com.instagram.auth.entity.User;
+import com.instagram.auth.message.TokenRevocationSender;
+import com.instagram.auth.repository.RevokedTokenRepository;
+import com.instagram.auth.service.UserPrincipalCache;
+import com.instagram.auth.service.impl.TokenRevocationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.types.ObjectId;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    public static JwtConfig jwtConfig(boolean cacheEnabled, boolean compactPrincipal) {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setHeader("Authorization");
+        jwtConfig.setPrefix("Bearer ");
+        jwtConfig.setExpiration(24 * 60 * 60);
+        jwtConfig.setSecret("benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret");
+        jwtConfig.setKeystoreLocation("");
+        jwtConfig.setCacheEnabled(cacheEnabled);
+        jwtConfig.setCacheMaxSize(100_000);
+        jwtConfig.setCompactPrincipal(compactPrincipal);
+        return jwtConfig;
+    }
+
+    public static JwtTokenProvider tokenProvider(JwtConfig jwtConfig, TokenRevocationServiceImpl tokenRevocationService) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtVerifiedTokenCache verifiedTokenCache = new JwtVerifiedTokenCache(jwtConfig, meterRegistry);
+        JwtKeyManager keyManager = new JwtKeyManager(jwtConfig, verifiedTokenCache);
+        return new JwtTokenProvider(jwtConfig, verifiedTokenCache, keyManager, tokenRevocationService, meterRegistry);
+    }
+
+    public static TokenRevocationServiceImpl tokenRevocationService() {
+        RevokedTokenRepository revokedTokenRepository = Mockito.mock(RevokedTokenRepository.class);
+        Mockito.when(revokedTokenRepository.findByExpiresAtAfter(Mockito.any())).thenAnswer(invocation -> Stream.empty());
+        return new TokenRevocationServiceImpl(revokedTokenRepository, Mockito.mock(TokenRevocationSender.class),
+                new SimpleMeterRegistry(), 100_000, 0.001);
+    }
+
+    public static User user() {
+        return User.builder()
+                .id(new ObjectId().toHexString())
+                .username("jane.doe")
+                .password("{bcrypt}$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z0e3NgJ0Yx0oZTr9Gx3u5B1e")
+                .email("jane.doe@example.com")
+                .createdAt(Instant.now())
+                .updatedAt(Instant.now())
+                .active(true)
+                .roles(new HashSet<>(Collections.singleton(Role.USER)))
+                .userProfile(Profile.builder()
+                        .displayName("Jane Doe")
+                        .profilePictureUrl("https://cdn.example.com/profile/jane.doe/5f1c2a7e.jpg")
+                        .build())
+                .build();
+    }
+
+    public static List<UserSummary> userSummaries(int size) {
+        List<UserSummary> summaries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            summaries.add(UserSummary.builder()
+                    .id(new ObjectId().toHexString())
+                    .username("user" + i)
+                    .name("User " + i)
+                    .profilePicture("https://cdn.example.com/profile/user" + i + ".jpg")
+                    .build());
+        }
+        return summaries;
+    }
+
+    public static UserPrincipalCache fixedPrincipalCache(User user) {
+        Optional<InstagramUserDetails> principal = Optional.of(new InstagramUserDetails(user));
+        return new UserPrincipalCache() {
+            @Override
+            public Optional<InstagramUserDetails> findByUsername(String username) {
+                return principal;
+            }
+
+            @Override
+            public CompletableFuture<Optional<InstagramUserDetails>> findByUsernameAsync(
+                    String username, Function<String, CompletionStage<Optional<InstagramUserDetails>>> loader) {
+                return CompletableFuture.completedFuture(principal);
+            }
+
+            @Override
+            public void invalidate(String username) {
+            }
+
+            @Override
+            public void invalidateAll() {
+            }
+        };
+    }
+}
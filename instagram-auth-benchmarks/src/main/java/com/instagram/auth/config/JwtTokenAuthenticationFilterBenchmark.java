@@ -0,0 +1,60 @@
+package com.instagram.auth.config;
+
+import com.instagram.auth.benchmark.BenchmarkFixtures;
+import com.instagram.auth.entity.InstagramUserDetails;
+import com.instagram.auth.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtTokenAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    @Param({"false", "true"})
+    public boolean compactPrincipal;
+
+    private JwtTokenAuthenticationFilter filter;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    private final FilterChain chain = (servletRequest, servletResponse) -> {
+    };
+
+    @Setup
+    public void setUp() {
+        JwtConfig jwtConfig = BenchmarkFixtures.jwtConfig(cacheEnabled, compactPrincipal);
+        JwtTokenProvider tokenProvider = BenchmarkFixtures.tokenProvider(jwtConfig, BenchmarkFixtures.tokenRevocationService());
+        User user = BenchmarkFixtures.user();
+        filter = new JwtTokenAuthenticationFilter(jwtConfig, tokenProvider, BenchmarkFixtures.fixedPrincipalCache(user), "service");
+
+        InstagramUserDetails userDetails = new InstagramUserDetails(user);
+        String token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+        request = new MockHttpServletRequest("GET", "/me");
+        request.addHeader(jwtConfig.getHeader(), jwtConfig.getPrefix() + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication doFilterInternal() throws Exception {
+        filter.doFilterInternal(request, response, chain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
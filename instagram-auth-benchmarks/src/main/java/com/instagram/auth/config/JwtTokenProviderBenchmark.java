@@ -0,0 +1,55 @@
+package com.instagram.auth.config;
+
+import com.instagram.auth.benchmark.BenchmarkFixtures;
+import com.instagram.auth.entity.InstagramUserDetails;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JwtTokenProviderBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    @Param({"false", "true"})
+    public boolean compactPrincipal;
+
+    private JwtTokenProvider tokenProvider;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = BenchmarkFixtures.tokenProvider(
+                BenchmarkFixtures.jwtConfig(cacheEnabled, compactPrincipal), BenchmarkFixtures.tokenRevocationService());
+        InstagramUserDetails userDetails = new InstagramUserDetails(BenchmarkFixtures.user());
+        authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        token = tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Claims getClaimsFromJWT() {
+        return tokenProvider.getClaimsFromJWT(token);
+    }
+}
@@ -0,0 +1,47 @@
+package com.instagram.auth.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.auth.benchmark.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class UserSummarySerializationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+
+    private List<UserSummary> summaries;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        summaries = BenchmarkFixtures.userSummaries(size);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes(PayloadSize payloadSize) throws JsonProcessingException {
+        byte[] payload = objectMapper.writeValueAsBytes(summaries);
+        payloadSize.payloadBytes = payload.length;
+        return payload;
+    }
+
+    // reported next to the throughput as the size of one response body, the field is overwritten rather than summed
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long payloadBytes;
+    }
+}
@@ -0,0 +1,29 @@
+package com.instagram.auth.entity;
+
+import com.instagram.auth.benchmark.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class InstagramUserDetailsBenchmark {
+
+    private InstagramUserDetails userDetails;
+
+    @Setup
+    public void setUp() {
+        userDetails = new InstagramUserDetails(BenchmarkFixtures.user());
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userDetails.getAuthorities();
+    }
+}
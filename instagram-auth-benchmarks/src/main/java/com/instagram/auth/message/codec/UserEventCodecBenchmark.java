@@ -0,0 +1,73 @@
+package com.instagram.auth.message.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.instagram.auth.domain.UserEventResponse;
+import com.instagram.auth.message.UserEventType;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class UserEventCodecBenchmark {
+
+    private UserEventCodec codec;
+
+    private ObjectWriter jsonWriter;
+
+    private ObjectReader jsonReader;
+
+    private UserEventResponse event;
+
+    private byte[] binary;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = new UserEventCodec(new UserEventSchemaRegistry());
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        jsonWriter = objectMapper.writerFor(UserEventResponse.class);
+        jsonReader = objectMapper.readerFor(UserEventResponse.class);
+        event = UserEventResponse.builder()
+                .id(new ObjectId().toHexString())
+                .eventType(UserEventType.UPDATED)
+                .username("jane.doe")
+                .email("jane.doe@example.com")
+                .displayName("Jane Doe")
+                .profilePictureUrl("https://cdn.example.com/profile/jane.doe/5f1c2a7e.jpg")
+                .oldProfilePicUrl("https://cdn.example.com/profile/jane.doe/0b9d44c1.jpg")
+                .build();
+        binary = codec.encode(event);
+        json = jsonWriter.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return codec.encode(event);
+    }
+
+    @Benchmark
+    public UserEventResponse decodeBinary() {
+        return codec.decode(binary);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return jsonWriter.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public UserEventResponse decodeJson() throws IOException {
+        return jsonReader.readValue(json);
+    }
+}
@@ -0,0 +1,30 @@
+package com.instagram.auth.message.impl;
+
+import com.instagram.auth.benchmark.BenchmarkFixtures;
+import com.instagram.auth.domain.UserEventResponse;
+import com.instagram.auth.entity.User;
+import com.instagram.auth.message.UserEventType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class UserEventSenderImplBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkFixtures.user();
+    }
+
+    @Benchmark
+    public UserEventResponse toDTO() {
+        return UserEventSenderImpl.toDTO(user, UserEventType.UPDATED);
+    }
+}
@@ -0,0 +1,47 @@
+package com.instagram.auth.service.impl;
+
+import com.instagram.auth.benchmark.BenchmarkFixtures;
+import com.instagram.auth.domain.TokenRevokedEvent;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class TokenRevocationServiceImplBenchmark {
+
+    @Param({"0", "10000", "100000"})
+    public int revokedTokens;
+
+    private TokenRevocationServiceImpl tokenRevocationService;
+
+    private String revokedJti;
+
+    private String validJti;
+
+    @Setup
+    public void setUp() {
+        tokenRevocationService = BenchmarkFixtures.tokenRevocationService();
+        long expiresAt = System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1);
+        for (int i = 0; i < revokedTokens; i++) {
+            tokenRevocationService.onRevoked(new TokenRevokedEvent("revoked-" + i, "user" + i, expiresAt));
+        }
+        tokenRevocationService.onRevoked(new TokenRevokedEvent("revoked-token-id-0000", "jane.doe", expiresAt));
+        revokedJti = "revoked-token-id-0000";
+        validJti = "Xq3b9T0kZ2pY7mWc1sVfAg";
+    }
+
+    @Benchmark
+    public boolean isRevokedMiss() {
+        return tokenRevocationService.isRevoked(validJti);
+    }
+
+    @Benchmark
+    public boolean isRevokedHit() {
+        return tokenRevocationService.isRevoked(revokedJti);
+    }
+}
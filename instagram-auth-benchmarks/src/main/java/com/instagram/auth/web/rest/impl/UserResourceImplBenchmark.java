@@ -0,0 +1,29 @@
+package com.instagram.auth.web.rest.impl;
+
+import com.instagram.auth.benchmark.BenchmarkFixtures;
+import com.instagram.auth.domain.UserSummary;
+import com.instagram.auth.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class UserResourceImplBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkFixtures.user();
+    }
+
+    @Benchmark
+    public UserSummary convertTo() {
+        return UserResourceImpl.convertTo(user);
+    }
+}
@@ -0,0 +1,36 @@
+package com.instagram.auth.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+final class GcSnapshot {
+
+    private final Map<String, long[]> collectors;
+
+    private GcSnapshot(Map<String, long[]> collectors) {
+        this.collectors = collectors;
+    }
+
+    static GcSnapshot take() {
+        Map<String, long[]> collectors = new LinkedHashMap<>();
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collectors.put(bean.getName(), new long[]{bean.getCollectionCount(), bean.getCollectionTime()});
+        }
+        return new GcSnapshot(collectors);
+    }
+
+    GcSnapshot minus(GcSnapshot earlier) {
+        Map<String, long[]> delta = new LinkedHashMap<>();
+        collectors.forEach((name, values) -> {
+            long[] before = earlier.collectors.getOrDefault(name, new long[2]);
+            delta.put(name, new long[]{values[0] - before[0], values[1] - before[1]});
+        });
+        return new GcSnapshot(delta);
+    }
+
+    Map<String, long[]> collectors() {
+        return collectors;
+    }
+}
@@ -0,0 +1,150 @@
+package com.instagram.auth.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// imports generated users through POST /import in one streamed request and reports users per second
+final class ImportBenchmark {
+
+    static final String USERNAME_PREFIX = "li";
+
+    private final URI baseUri;
+
+    private final ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    ImportBenchmark(URI baseUri, ObjectMapper objectMapper) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+    }
+
+    Result run(String mode, int users, String serviceUsername, String servicePassword) throws IOException, InterruptedException {
+        String token = signIn(serviceUsername, servicePassword);
+        // generated up front so that only the service is measured
+        byte[] body = records(users);
+
+        GcSnapshot gcBefore = GcSnapshot.take();
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(baseUri.resolve("/import"))
+                .timeout(Duration.ofHours(2))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        GcSnapshot gc = GcSnapshot.take().minus(gcBefore);
+
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Import failed: HTTP " + response.statusCode() + " "
+                    + new String(response.body(), StandardCharsets.UTF_8));
+        }
+        JsonNode result = objectMapper.readTree(response.body());
+        return new Result(mode, users, result.get("imported").asLong(), result.get("failed").asLong(), elapsed, gc);
+    }
+
+    private String signIn(String username, String password) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(baseUri.resolve("/signin"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(Map.of(
+                        "username", username,
+                        "password", password))))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Could not sign in " + username + ": HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    // usernames are limited to 15 characters
+    private byte[] records(int users) throws IOException {
+        String runId = Long.toString(System.currentTimeMillis() % 1_679_616, 36);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(users * 128);
+        for (int i = 0; i < users; i++) {
+            String username = USERNAME_PREFIX + runId + Long.toString(i, 36);
+            Map<String, String> record = new LinkedHashMap<>();
+            record.put("name", "Imported " + username);
+            record.put("username", username);
+            record.put("email", username + "@loadtest.local");
+            record.put("password", LoadTestApplication.PASSWORD);
+            out.write(objectMapper.writeValueAsBytes(record));
+            out.write('\n');
+        }
+        return out.toByteArray();
+    }
+
+    static final class Result {
+
+        private final String mode;
+
+        private final int users;
+
+        private final long imported;
+
+        private final long failed;
+
+        private final Duration elapsed;
+
+        private final GcSnapshot gc;
+
+        private Result(String mode, int users, long imported, long failed, Duration elapsed, GcSnapshot gc) {
+            this.mode = mode;
+            this.users = users;
+            this.imported = imported;
+            this.failed = failed;
+            this.elapsed = elapsed;
+            this.gc = gc;
+        }
+
+        long failed() {
+            return failed;
+        }
+
+        double usersPerSecond() {
+            return imported / (elapsed.toNanos() / 1e9);
+        }
+
+        void print(PrintStream out) {
+            out.printf("import mode=%s users=%d imported=%d failed=%d elapsed=%.1fs throughput=%.1f users/s cores=%d%n",
+                    mode, users, imported, failed, elapsed.toNanos() / 1e9, usersPerSecond(),
+                    Runtime.getRuntime().availableProcessors());
+            gc.collectors().forEach((name, values) ->
+                    out.printf("gc %-25s collections=%d time=%dms%n", name, values[0], values[1]));
+        }
+
+        void write(ObjectMapper objectMapper, File file) throws IOException {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("mode", mode);
+            report.put("users", users);
+            report.put("imported", imported);
+            report.put("failed", failed);
+            report.put("durationSeconds", elapsed.toMillis() / 1000.0);
+            report.put("usersPerSecond", usersPerSecond());
+            report.put("cores", Runtime.getRuntime().availableProcessors());
+            Map<String, Object> collectors = new LinkedHashMap<>();
+            gc.collectors().forEach((name, values) -> {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("collections", values[0]);
+                entry.put("timeMs", values[1]);
+                collectors.put(name, entry);
+            });
+            report.put("gc", collectors);
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.instagram.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+final class LoadDriver {
+
+    private static final long MAX_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LoadTestOptions options;
+
+    private final URI baseUri;
+
+    private final ObjectMapper objectMapper;
+
+    private final HttpClient client;
+
+    private final Operation[] operations;
+
+    private final int[] cumulativeWeights;
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    LoadDriver(LoadTestOptions options, URI baseUri, ObjectMapper objectMapper) {
+        this.options = options;
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        this.operations = options.mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += options.mix.get(operations[i]);
+            cumulativeWeights[i] = total;
+            recorders.put(operations[i], new Recorder(MAX_LATENCY_NANOS, 3));
+            errors.put(operations[i], new LongAdder());
+        }
+    }
+
+    LoadTestReport run() throws Exception {
+        List<WorkerContext> contexts = signIn();
+
+        long start = System.nanoTime();
+        long measureStart = start + options.warmup.toNanos();
+        long end = measureStart + options.duration.toNanos();
+        CountDownLatch done = new CountDownLatch(contexts.size());
+        List<Thread> workers = new ArrayList<>(contexts.size());
+        for (int i = 0; i < contexts.size(); i++) {
+            WorkerContext context = contexts.get(i);
+            int worker = i;
+            Thread thread = new Thread(() -> {
+                try {
+                    work(context, worker, start, end);
+                } finally {
+                    done.countDown();
+                }
+            }, "load-worker-" + i);
+            thread.setDaemon(true);
+            workers.add(thread);
+        }
+        workers.forEach(Thread::start);
+
+        sleepUntil(measureStart);
+        // everything recorded during the warmup is thrown away with this interval
+        recorders.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+        GcSnapshot gcBefore = GcSnapshot.take();
+
+        done.await();
+        long elapsed = System.nanoTime() - measureStart;
+        GcSnapshot gcAfter = GcSnapshot.take();
+
+        Map<Operation, Histogram> histograms = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errorCounts = new EnumMap<>(Operation.class);
+        for (Operation operation : operations) {
+            histograms.put(operation, recorders.get(operation).getIntervalHistogram());
+            errorCounts.put(operation, errors.get(operation).sum());
+        }
+        return new LoadTestReport(options, elapsed, histograms, errorCounts, gcAfter.minus(gcBefore));
+    }
+
+    private List<WorkerContext> signIn() throws IOException, InterruptedException {
+        String runId = Long.toString(System.currentTimeMillis() % 1_679_616, 36);
+        AtomicLong signups = new AtomicLong();
+        SplittableRandom seed = new SplittableRandom();
+        List<WorkerContext> contexts = new ArrayList<>(options.concurrency);
+        for (int i = 0; i < options.concurrency; i++) {
+            String username = LoadTestApplication.username(i % options.users);
+            WorkerContext context = new WorkerContext(baseUri, objectMapper, seed.split(), options.users,
+                    options.summaryBatch, runId, signups, username);
+            HttpResponse<byte[]> response = client.send(context.postJson("/signin", Map.of(
+                    "username", username,
+                    "password", LoadTestApplication.PASSWORD)).build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Could not sign in " + username + ": HTTP " + response.statusCode());
+            }
+            context.setToken(objectMapper.readTree(response.body()).get("accessToken").asText());
+            contexts.add(context);
+        }
+        return contexts;
+    }
+
+    private void work(WorkerContext context, int worker, long start, long end) {
+        // with a target rate every worker owns a fixed schedule, and latency counts from the scheduled start
+        long interval = options.rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(options.concurrency) / options.rate) : 0;
+        long intended = start + (interval > 0 ? interval * worker / options.concurrency : 0);
+        while (true) {
+            long now = System.nanoTime();
+            if (interval > 0) {
+                if (intended - now > 0) {
+                    sleepUntil(intended);
+                }
+            } else {
+                intended = now;
+            }
+            if (intended - end >= 0) {
+                return;
+            }
+            Operation operation = pick(context.random());
+            boolean ok = execute(operation, context);
+            long latency = System.nanoTime() - intended;
+            if (ok) {
+                recorders.get(operation).recordValue(Math.min(latency, MAX_LATENCY_NANOS));
+            } else {
+                errors.get(operation).increment();
+            }
+            intended += interval;
+        }
+    }
+
+    private boolean execute(Operation operation, WorkerContext context) {
+        HttpRequest.Builder request = operation.request(context);
+        if (operation.isAuthenticated()) {
+            request.header("Authorization", "Bearer " + context.token());
+        }
+        try {
+            HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() / 100 == 2;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Operation pick(SplittableRandom random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
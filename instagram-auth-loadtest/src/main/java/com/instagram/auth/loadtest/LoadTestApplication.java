@@ -0,0 +1,169 @@
+package com.instagram.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instagram.auth.InstagramAuthApplication;
+import com.instagram.auth.entity.Profile;
+import com.instagram.auth.entity.Role;
+import com.instagram.auth.entity.User;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.File;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class LoadTestApplication {
+
+    static final String PASSWORD = "loadtest-password";
+
+    private static final String USERNAME_PREFIX = "lt";
+
+    private static final String SIGNUP_PREFIX = "ls";
+
+    private static final String SERVICE_USERNAME = "loadtest-service";
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        System.setProperty("spring.cloud.config.enabled", "false");
+        System.setProperty("eureka.client.enabled", "false");
+        // every worker signs in from the same address, pass --security.login.throttle.enabled=true to measure it anyway
+        System.setProperty("security.login.throttle.enabled", "false");
+
+        EmbeddedKafkaBroker embeddedKafka = null;
+        if ("embedded".equals(options.kafka)) {
+            embeddedKafka = new EmbeddedKafkaBroker(1, true, 1, "instagramUserChanged", "tokenRevoked", "loginFailures");
+            embeddedKafka.afterPropertiesSet();
+            options.kafka = embeddedKafka.getBrokersAsString();
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(InstagramAuthApplication.class)
+                .profiles(profiles(options.mode))
+                .run(applicationArgs(options).toArray(new String[0]));
+        int exitCode = 0;
+        try {
+            seed(context, options.users);
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            URI baseUri = URI.create("http://localhost:" + port + "/");
+
+            if (options.importUsers > 0) {
+                ImportBenchmark.Result result = new ImportBenchmark(baseUri, objectMapper)
+                        .run(options.mode, options.importUsers, SERVICE_USERNAME, PASSWORD);
+                result.print(System.out);
+                if (options.report != null) {
+                    result.write(objectMapper, new File(options.report));
+                }
+                if (result.failed() > 0) {
+                    exitCode = 1;
+                }
+            } else {
+                LoadDriver driver = new LoadDriver(options, baseUri, objectMapper);
+                LoadTestReport report = driver.run();
+                report.print(System.out);
+                if (options.report != null) {
+                    report.write(objectMapper, new File(options.report));
+                }
+                if (report.totalErrors() > 0) {
+                    exitCode = 1;
+                }
+            }
+        } finally {
+            context.close();
+            if (embeddedKafka != null) {
+                embeddedKafka.destroy();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    static String username(int index) {
+        return USERNAME_PREFIX + index;
+    }
+
+    private static String[] profiles(String mode) {
+        switch (mode) {
+            case "servlet":
+                return new String[0];
+            case "reactive":
+                return new String[]{"reactive"};
+            case "virtual-threads":
+                return new String[]{"virtual-threads"};
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    private static List<String> applicationArgs(LoadTestOptions options) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=0");
+        args.add("--security.service.username=" + SERVICE_USERNAME);
+        args.add("--security.service.password=" + PASSWORD);
+        args.add("--logging.level.com.instagram=WARN");
+
+        List<String> excluded = new ArrayList<>();
+        if (options.mongoUri != null) {
+            args.add("--spring.data.mongodb.uri=" + options.mongoUri);
+            excluded.add("org.springframework.boot.autoconfigure.mongo.embedded.EmbeddedMongoAutoConfiguration");
+        } else {
+            args.add("--spring.mongodb.embedded.version=4.0.2");
+        }
+        if (options.kafka != null) {
+            args.add("--spring.cloud.stream.kafka.binder.brokers=" + options.kafka);
+            excluded.add("org.springframework.cloud.stream.test.binder.TestSupportBinderAutoConfiguration");
+        }
+        if (!excluded.isEmpty()) {
+            args.add("--spring.autoconfigure.exclude=" + String.join(",", excluded));
+        }
+
+        args.addAll(options.applicationArgs);
+        return args;
+    }
+
+    // inserted directly so that seeding a large population does not pay for one bcrypt hash per user
+    private static void seed(ConfigurableApplicationContext context, int users) {
+        MongoTemplate mongoTemplate = context.getBean(MongoTemplate.class);
+        String password = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+
+        mongoTemplate.remove(new Query(new Criteria().orOperator(
+                Criteria.where("username").regex("^" + USERNAME_PREFIX + "\\d+$"),
+                Criteria.where("username").regex("^" + SIGNUP_PREFIX),
+                Criteria.where("username").regex("^" + ImportBenchmark.USERNAME_PREFIX))), User.class);
+
+        Instant now = Instant.now();
+        List<User> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < users; i++) {
+            String username = username(i);
+            batch.add(User.builder()
+                    .username(username)
+                    .password(password)
+                    .email(username + "@loadtest.local")
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .active(true)
+                    .roles(Collections.singleton(Role.USER))
+                    .userProfile(Profile.builder()
+                            .displayName("Load " + username)
+                            .profilePictureUrl("https://cdn.loadtest.local/" + username + ".jpg")
+                            .build())
+                    .build());
+            if (batch.size() == SEED_BATCH_SIZE) {
+                mongoTemplate.insert(batch, User.class);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.insert(batch, User.class);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.instagram.auth.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+final class LoadTestOptions {
+
+    String mode = "servlet";
+
+    int users = 10_000;
+
+    int concurrency = 32;
+
+    double rate;
+
+    Duration warmup = Duration.ofSeconds(20);
+
+    Duration duration = Duration.ofSeconds(60);
+
+    Map<Operation, Integer> mix = parseMix("summary:40,find-user:20,me:20,summary-in:10,profile-update:5,signin:4,signup:1");
+
+    int summaryBatch = 100;
+
+    int importUsers;
+
+    String report;
+
+    String mongoUri;
+
+    String kafka;
+
+    final List<String> applicationArgs = new ArrayList<>();
+
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --key=value but got " + arg);
+            }
+            String key = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (key) {
+                case "mode":
+                    options.mode = value;
+                    break;
+                case "users":
+                    options.users = Integer.parseInt(value);
+                    break;
+                case "concurrency":
+                    options.concurrency = Integer.parseInt(value);
+                    break;
+                case "rate":
+                    options.rate = Double.parseDouble(value);
+                    break;
+                case "warmup":
+                    options.warmup = parseDuration(value);
+                    break;
+                case "duration":
+                    options.duration = parseDuration(value);
+                    break;
+                case "mix":
+                    options.mix = parseMix(value);
+                    break;
+                case "summary-batch":
+                    options.summaryBatch = Integer.parseInt(value);
+                    break;
+                case "import":
+                    options.importUsers = Integer.parseInt(value);
+                    break;
+                case "report":
+                    options.report = value;
+                    break;
+                case "mongo-uri":
+                    options.mongoUri = value;
+                    break;
+                case "kafka":
+                    options.kafka = value;
+                    break;
+                default:
+                    options.applicationArgs.add(arg);
+            }
+        }
+        return options;
+    }
+
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        switch (value.charAt(value.length() - 1)) {
+            case 's':
+                return Duration.ofSeconds(amount);
+            case 'm':
+                return Duration.ofMinutes(amount);
+            case 'h':
+                return Duration.ofHours(amount);
+            default:
+                throw new IllegalArgumentException("Unknown duration " + value);
+        }
+    }
+
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.split(":");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.fromKey(parts[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,95 @@
+package com.instagram.auth.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+final class LoadTestReport {
+
+    private final LoadTestOptions options;
+
+    private final long elapsedNanos;
+
+    private final Map<Operation, Histogram> histograms;
+
+    private final Map<Operation, Long> errors;
+
+    private final GcSnapshot gc;
+
+    LoadTestReport(LoadTestOptions options, long elapsedNanos, Map<Operation, Histogram> histograms,
+                   Map<Operation, Long> errors, GcSnapshot gc) {
+        this.options = options;
+        this.elapsedNanos = elapsedNanos;
+        this.histograms = histograms;
+        this.errors = errors;
+        this.gc = gc;
+    }
+
+    long totalErrors() {
+        return errors.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    void print(PrintStream out) {
+        out.printf("mode=%s users=%d concurrency=%d rate=%s duration=%ds%n", options.mode, options.users,
+                options.concurrency, options.rate > 0 ? options.rate + "/s" : "closed-loop", options.duration.getSeconds());
+        out.printf("%-15s %10s %8s %10s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        histograms.forEach((operation, histogram) -> out.printf("%-15s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                operation.key(),
+                histogram.getTotalCount(),
+                errors.get(operation),
+                throughput(histogram),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue())));
+        gc.collectors().forEach((name, values) ->
+                out.printf("gc %-25s collections=%d time=%dms%n", name, values[0], values[1]));
+    }
+
+    void write(ObjectMapper objectMapper, File file) throws IOException {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        histograms.forEach((operation, histogram) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("count", histogram.getTotalCount());
+            entry.put("errors", errors.get(operation));
+            entry.put("opsPerSecond", throughput(histogram));
+            entry.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+            entry.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+            entry.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+            entry.put("maxMs", millis(histogram.getMaxValue()));
+            operations.put(operation.key(), entry);
+        });
+        Map<String, Object> collectors = new LinkedHashMap<>();
+        gc.collectors().forEach((name, values) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("collections", values[0]);
+            entry.put("timeMs", values[1]);
+            collectors.put(name, entry);
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("mode", options.mode);
+        report.put("users", options.users);
+        report.put("concurrency", options.concurrency);
+        report.put("rate", options.rate);
+        report.put("durationSeconds", TimeUnit.NANOSECONDS.toMillis(elapsedNanos) / 1000.0);
+        report.put("operations", operations);
+        report.put("gc", collectors);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+    }
+
+    private double throughput(Histogram histogram) {
+        return histogram.getTotalCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
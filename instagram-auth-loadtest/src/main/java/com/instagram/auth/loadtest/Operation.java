@@ -0,0 +1,108 @@
+package com.instagram.auth.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+enum Operation {
+    SIGNIN("signin", false) {
+        @Override
+        HttpRequest.Builder request(WorkerContext context) {
+            return context.postJson("/signin", Map.of(
+                    "username", context.randomUsername(),
+                    "password", LoadTestApplication.PASSWORD));
+        }
+    },
+    SIGNUP("signup", false) {
+        @Override
+        HttpRequest.Builder request(WorkerContext context) {
+            String username = context.nextSignupUsername();
+            return context.postJson("/create", Map.of(
+                    "name", "Load " + username,
+                    "username", username,
+                    "email", username + "@loadtest.local",
+                    "password", LoadTestApplication.PASSWORD));
+        }
+    },
+    AVAILABILITY("availability", false) {
+        @Override
+        HttpRequest.Builder request(WorkerContext context) {
+            // half of the probes ask for a name that is already taken
+            String username = context.random().nextBoolean() ? context.randomUsername() : context.nextSignupUsername();
+            return context.get("/availability?username=" + username);
+        }
+    },
+    FIND_USER("find-user", true) {
+        @Override
+        HttpRequest.Builder request(WorkerContext context) {
+            return context.get("/" + context.randomUsername());
+        }
+    },
+    ME("me", true) {
+        @Override
+        HttpRequest.Builder request(WorkerContext context) {
+            return context.get("/me");
+        }
+    },
+    SUMMARY("summary", true) {
+        @Override
+        HttpRequest.Builder request(WorkerContext context) {
+            return context.get("/summary/" + context.randomUsername());
+        }
+    },
+    SEARCH("search", true) {
+        @Override
+        HttpRequest.Builder request(WorkerContext context) {
+            // short prefixes match many users and long ones a few, display names start with "load "
+            String username = context.randomUsername();
+            int length = 3 + context.random().nextInt(Math.max(1, username.length() - 2));
+            String prefix = context.random().nextBoolean() ? username.substring(0, length) : "load%20" + username.substring(0, length);
+            return context.get("/search?limit=20&q=" + prefix);
+        }
+    },
+    SUMMARY_IN("summary-in", true) {
+        @Override
+        HttpRequest.Builder request(WorkerContext context) {
+            List<String> usernames = new ArrayList<>(context.summaryBatch());
+            for (int i = 0; i < context.summaryBatch(); i++) {
+                usernames.add(context.randomUsername());
+            }
+            return context.postJson("/summary/in", usernames);
+        }
+    },
+    PROFILE_UPDATE("profile-update", true) {
+        @Override
+        HttpRequest.Builder request(WorkerContext context) {
+            return context.putText("/me/picture", "https://cdn.loadtest.local/" + context.username() + "/" + context.nextLong() + ".jpg");
+        }
+    };
+
+    private final String key;
+
+    private final boolean authenticated;
+
+    Operation(String key, boolean authenticated) {
+        this.key = key;
+        this.authenticated = authenticated;
+    }
+
+    abstract HttpRequest.Builder request(WorkerContext context);
+
+    String key() {
+        return key;
+    }
+
+    boolean isAuthenticated() {
+        return authenticated;
+    }
+
+    static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + key);
+    }
+}
@@ -0,0 +1,105 @@
+package com.instagram.auth.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class WorkerContext {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUri;
+
+    private final ObjectMapper objectMapper;
+
+    private final SplittableRandom random;
+
+    private final int users;
+
+    private final int summaryBatch;
+
+    private final String runId;
+
+    private final AtomicLong signups;
+
+    private final String username;
+
+    private String token;
+
+    WorkerContext(URI baseUri, ObjectMapper objectMapper, SplittableRandom random, int users, int summaryBatch,
+                  String runId, AtomicLong signups, String username) {
+        this.baseUri = baseUri;
+        this.objectMapper = objectMapper;
+        this.random = random;
+        this.users = users;
+        this.summaryBatch = summaryBatch;
+        this.runId = runId;
+        this.signups = signups;
+        this.username = username;
+    }
+
+    HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path)).timeout(REQUEST_TIMEOUT).GET();
+    }
+
+    HttpRequest.Builder postJson(String path, Object body) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(toJson(body)));
+    }
+
+    HttpRequest.Builder putText(String path, String body) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "text/plain")
+                .PUT(HttpRequest.BodyPublishers.ofString(body));
+    }
+
+    String randomUsername() {
+        return LoadTestApplication.username(random.nextInt(users));
+    }
+
+    // usernames are limited to 15 characters
+    String nextSignupUsername() {
+        return "ls" + runId + Long.toString(signups.incrementAndGet(), 36);
+    }
+
+    long nextLong() {
+        return random.nextLong();
+    }
+
+    SplittableRandom random() {
+        return random;
+    }
+
+    int summaryBatch() {
+        return summaryBatch;
+    }
+
+    String username() {
+        return username;
+    }
+
+    String token() {
+        return token;
+    }
+
+    void setToken(String token) {
+        this.token = token;
+    }
+
+    private byte[] toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package com.instagram.auth;
 
+import com.instagram.auth.message.LoginFailureStream;
+import com.instagram.auth.message.TokenRevocationStream;
 import com.instagram.auth.message.UserEventStream;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
 import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableMongoAuditing
 @EnableEurekaClient
-@EnableBinding(UserEventStream.class)
+@EnableBinding({UserEventStream.class, TokenRevocationStream.class, LoginFailureStream.class})
+@EnableScheduling
 public class InstagramAuthApplication {
 
     public static void main(String[] args) {
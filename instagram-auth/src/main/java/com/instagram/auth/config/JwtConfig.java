@@ -23,4 +23,34 @@ public class JwtConfig {
 
     @Value("${security.jwt.secret:JwtSecretKey}")
     private String secret;
+
+    @Value("${security.jwt.keystore.location:}")
+    private String keystoreLocation;
+
+    @Value("${security.jwt.keystore.password:}")
+    private String keystorePassword;
+
+    @Value("${security.jwt.keystore.type:PKCS12}")
+    private String keystoreType;
+
+    @Value("${security.jwt.keystore.active-key-id:}")
+    private String activeKeyId;
+
+    @Value("${security.jwt.keystore.activation-delay:#{60*60}}")
+    private int keyActivationDelay;
+
+    @Value("${security.jwt.keystore.accept-hmac-tokens:false}")
+    private boolean acceptHmacTokens;
+
+    @Value("${security.jwt.jwks.max-age:#{15*60}}")
+    private int jwksMaxAge;
+
+    @Value("${security.jwt.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${security.jwt.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    @Value("${security.jwt.compact-principal:false}")
+    private boolean compactPrincipal;
 }
@@ -0,0 +1,252 @@
+package com.instagram.auth.config;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.UnsupportedJwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Component
+public class JwtKeyManager {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final JwtConfig jwtConfig;
+
+    private final JwtVerifiedTokenCache verifiedTokenCache;
+
+    private final JwtSigningKey hmacKey;
+
+    private final AtomicReference<JwtKeySet> keySet = new AtomicReference<>();
+
+    private List<JwtSigningKey> keystoreKeys = Collections.emptyList();
+
+    private long keystoreLastModified = -1;
+
+    public JwtKeyManager(JwtConfig jwtConfig, JwtVerifiedTokenCache verifiedTokenCache) {
+        this.jwtConfig = jwtConfig;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.hmacKey = new JwtSigningKey(
+                null,
+                SignatureAlgorithm.HS512,
+                new SecretKeySpec(jwtConfig.getSecret().getBytes(), SignatureAlgorithm.HS512.getJcaName()),
+                null,
+                Instant.EPOCH);
+        refresh();
+    }
+
+    public JwtSigningKey getSigningKey() {
+        return keySet.get().getSigningKey();
+    }
+
+    public Key resolveVerificationKey(String kid, String algorithm) {
+        JwtKeySet current = keySet.get();
+        if (kid == null) {
+            if (current.isHmacAccepted() && hmacKey.getAlgorithm().getValue().equals(algorithm)) {
+                return hmacKey.getSigningKey();
+            }
+            throw new UnsupportedJwtException("JWT without key id is not accepted");
+        }
+        JwtSigningKey key = current.getVerificationKeys().get(kid);
+        if (key == null) {
+            throw new UnsupportedJwtException(String.format("Unknown JWT key id %s", kid));
+        }
+        if (!key.getAlgorithm().getValue().equals(algorithm)) {
+            throw new UnsupportedJwtException(String.format("JWT algorithm %s does not match key id %s", algorithm, kid));
+        }
+        return key.getPublicKey();
+    }
+
+    public Map<String, Object> getJwks() {
+        return keySet.get().getJwks();
+    }
+
+    @Scheduled(fixedDelayString = "${security.jwt.keystore.reload-interval:60000}",
+            initialDelayString = "${security.jwt.keystore.reload-interval:60000}")
+    public synchronized void refresh() {
+        if (!StringUtils.hasText(jwtConfig.getKeystoreLocation())) {
+            if (keySet.get() == null) {
+                keySet.set(new JwtKeySet(hmacKey, Collections.emptyMap(), true, toJwks(Collections.emptyList())));
+            }
+            return;
+        }
+        try {
+            Path path = Paths.get(jwtConfig.getKeystoreLocation());
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            if (lastModified != keystoreLastModified) {
+                keystoreKeys = loadKeys(path);
+                keystoreLastModified = lastModified;
+                log.info("loaded JWT keys {} from {}", kidsOf(keystoreKeys), path);
+            }
+            // the active key can change without the keystore changing once an activation delay elapses
+            swap(buildKeySet(keystoreKeys));
+        } catch (Exception e) {
+            if (keySet.get() == null) {
+                throw new IllegalStateException("Could not load JWT keystore " + jwtConfig.getKeystoreLocation(), e);
+            }
+            log.error("could not reload JWT keystore {}, keeping current keys", jwtConfig.getKeystoreLocation(), e);
+        }
+    }
+
+    private void swap(JwtKeySet next) {
+        JwtKeySet previous = keySet.getAndSet(next);
+        if (previous == null) {
+            return;
+        }
+        if (!previous.getSigningKey().equals(next.getSigningKey())) {
+            log.info("JWT signing key rotated to {}", next.getSigningKey().getKid());
+        }
+        boolean keysRetired = !next.getVerificationKeys().keySet().containsAll(previous.getVerificationKeys().keySet())
+                || (previous.isHmacAccepted() && !next.isHmacAccepted());
+        if (keysRetired) {
+            verifiedTokenCache.invalidateAll();
+        }
+    }
+
+    private JwtKeySet buildKeySet(List<JwtSigningKey> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("JWT keystore contains no usable signing keys");
+        }
+        Map<String, JwtSigningKey> verificationKeys = new HashMap<>();
+        keys.forEach(key -> verificationKeys.put(key.getKid(), key));
+        return new JwtKeySet(
+                selectSigningKey(keys),
+                Collections.unmodifiableMap(verificationKeys),
+                jwtConfig.isAcceptHmacTokens(),
+                toJwks(keys));
+    }
+
+    private JwtSigningKey selectSigningKey(List<JwtSigningKey> keys) {
+        if (StringUtils.hasText(jwtConfig.getActiveKeyId())) {
+            Optional<JwtSigningKey> active = keys.stream()
+                    .filter(key -> key.getKid().equals(jwtConfig.getActiveKeyId()))
+                    .findFirst();
+            if (active.isPresent()) {
+                return active.get();
+            }
+            log.warn("configured JWT key id {} not found in keystore", jwtConfig.getActiveKeyId());
+        }
+        // new keys are published in the JWKS for the activation delay before they sign anything,
+        // so that downstream services have fetched them by the time they see them
+        Instant activationCutoff = Instant.now().minusSeconds(jwtConfig.getKeyActivationDelay());
+        return keys.stream()
+                .filter(key -> !key.getCreatedAt().isAfter(activationCutoff))
+                .max(Comparator.comparing(JwtSigningKey::getCreatedAt))
+                .orElseGet(() -> keys.stream().min(Comparator.comparing(JwtSigningKey::getCreatedAt)).get());
+    }
+
+    private List<JwtSigningKey> loadKeys(Path path) throws Exception {
+        char[] password = jwtConfig.getKeystorePassword().toCharArray();
+        KeyStore keyStore = KeyStore.getInstance(jwtConfig.getKeystoreType());
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, password);
+        }
+
+        List<JwtSigningKey> keys = new ArrayList<>();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (!keyStore.isKeyEntry(alias)) {
+                continue;
+            }
+            Key key = keyStore.getKey(alias, password);
+            Certificate certificate = keyStore.getCertificate(alias);
+            if (!(key instanceof PrivateKey) || certificate == null) {
+                continue;
+            }
+            PublicKey publicKey = certificate.getPublicKey();
+            SignatureAlgorithm algorithm = algorithmFor(publicKey);
+            if (algorithm == null) {
+                log.warn("skipping JWT key {} with unsupported type {}", alias, publicKey.getAlgorithm());
+                continue;
+            }
+            Date createdAt = keyStore.getCreationDate(alias);
+            keys.add(new JwtSigningKey(alias, algorithm, key, publicKey,
+                    createdAt != null ? createdAt.toInstant() : Instant.EPOCH));
+        }
+        return keys;
+    }
+
+    private static SignatureAlgorithm algorithmFor(PublicKey publicKey) {
+        if (publicKey instanceof RSAPublicKey) {
+            return SignatureAlgorithm.RS256;
+        }
+        if (publicKey instanceof ECPublicKey) {
+            switch (fieldSize((ECPublicKey) publicKey)) {
+                case 256:
+                    return SignatureAlgorithm.ES256;
+                case 384:
+                    return SignatureAlgorithm.ES384;
+                case 521:
+                    return SignatureAlgorithm.ES512;
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Object> toJwks(List<JwtSigningKey> keys) {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        keys.forEach(key -> jwks.add(toJwk(key)));
+        return Collections.singletonMap("keys", Collections.unmodifiableList(jwks));
+    }
+
+    private static Map<String, Object> toJwk(JwtSigningKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (key.getPublicKey() instanceof RSAPublicKey) {
+            RSAPublicKey publicKey = (RSAPublicKey) key.getPublicKey();
+            jwk.put("kty", "RSA");
+            jwk.put("n", BASE64_URL.encodeToString(unsigned(publicKey.getModulus(), 0)));
+            jwk.put("e", BASE64_URL.encodeToString(unsigned(publicKey.getPublicExponent(), 0)));
+        } else {
+            ECPublicKey publicKey = (ECPublicKey) key.getPublicKey();
+            int fieldSize = fieldSize(publicKey);
+            int length = (fieldSize + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-" + fieldSize);
+            jwk.put("x", BASE64_URL.encodeToString(unsigned(publicKey.getW().getAffineX(), length)));
+            jwk.put("y", BASE64_URL.encodeToString(unsigned(publicKey.getW().getAffineY(), length)));
+        }
+        jwk.put("use", "sig");
+        jwk.put("alg", key.getAlgorithm().getValue());
+        jwk.put("kid", key.getKid());
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    private static int fieldSize(ECPublicKey publicKey) {
+        return publicKey.getParams().getCurve().getField().getFieldSize();
+    }
+
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+        int size = Math.max(bytes.length - offset, length);
+        byte[] result = new byte[size];
+        System.arraycopy(bytes, offset, result, size - (bytes.length - offset), bytes.length - offset);
+        return result;
+    }
+
+    private static List<String> kidsOf(List<JwtSigningKey> keys) {
+        List<String> kids = new ArrayList<>();
+        keys.forEach(key -> kids.add(key.getKid()));
+        return kids;
+    }
+}
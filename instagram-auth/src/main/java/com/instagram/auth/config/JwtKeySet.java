@@ -0,0 +1,13 @@
+package com.instagram.auth.config;
+
+import lombok.Value;
+
+import java.util.Map;
+
+@Value
+public class JwtKeySet {
+    JwtSigningKey signingKey;
+    Map<String, JwtSigningKey> verificationKeys;
+    boolean hmacAccepted;
+    Map<String, Object> jwks;
+}
@@ -0,0 +1,17 @@
+package com.instagram.auth.config;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.Value;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.time.Instant;
+
+@Value
+public class JwtSigningKey {
+    String kid;
+    SignatureAlgorithm algorithm;
+    Key signingKey;
+    PublicKey publicKey;
+    Instant createdAt;
+}
@@ -1,7 +1,6 @@
 package com.instagram.auth.config;
 
-import com.instagram.auth.entity.InstagramUserDetails;
-import com.instagram.auth.service.UserService;
+import com.instagram.auth.service.UserPrincipalCache;
 import io.jsonwebtoken.Claims;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -16,6 +15,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
@@ -24,19 +24,21 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
 
-    private final UserService userService;
+    private final UserPrincipalCache userPrincipalCache;
 
     private String serviceName;
 
+    private final WebAuthenticationDetailsSource authenticationDetailsSource = new WebAuthenticationDetailsSource();
+
     public JwtTokenAuthenticationFilter(
             JwtConfig jwtConfig,
             JwtTokenProvider tokenProvider,
-            UserService userService,
+            UserPrincipalCache userPrincipalCache,
             String serviceName
     ) {
         this.jwtConfig = jwtConfig;
         this.tokenProvider = tokenProvider;
-        this.userService = userService;
+        this.userPrincipalCache = userPrincipalCache;
         this.serviceName = serviceName;
     }
 
@@ -48,9 +50,9 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
-        String token = header.replace(jwtConfig.getPrefix(), "");
-        if (tokenProvider.validateToken(token)) {
-            Claims claims = tokenProvider.getClaimsFromJWT(token);
+        Optional<Claims> verifiedClaims = tokenProvider.verifyAuthorizationHeader(header);
+        if (verifiedClaims.isPresent()) {
+            Claims claims = verifiedClaims.get();
             String userName = claims.getSubject();
             UsernamePasswordAuthenticationToken auth;
             if (userName.equals(serviceName)) {
@@ -61,15 +63,16 @@ public class JwtTokenAuthenticationFilter extends OncePerRequestFilter {
                         authorities.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList())
                 );
             } else {
-                auth = userService.findByUsername(userName)
-                        .map(InstagramUserDetails::new)
+                // compact tokens carry the whole principal, older ones still need a lookup
+                auth = tokenProvider.toCompactPrincipal(claims)
+                        .or(() -> userPrincipalCache.findByUsername(userName))
                         .map(instagramUserDetails -> {
                             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                                     instagramUserDetails,
                                     null,
                                     instagramUserDetails.getAuthorities()
                             );
-                            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(httpServletRequest));
+                            authenticationToken.setDetails(authenticationDetailsSource.buildDetails(httpServletRequest));
                             return authenticationToken;
                         })
                         .orElse(null);
@@ -0,0 +1,88 @@
+package com.instagram.auth.config;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.Context;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class JwtTokenAuthenticationWebFilter implements WebFilter {
+
+    private final JwtConfig jwtConfig;
+
+    private final JwtTokenProvider tokenProvider;
+
+    private final ReactiveUserDetailsService userDetailsService;
+
+    private final String serviceName;
+
+    public JwtTokenAuthenticationWebFilter(
+            JwtConfig jwtConfig,
+            JwtTokenProvider tokenProvider,
+            ReactiveUserDetailsService userDetailsService,
+            String serviceName
+    ) {
+        this.jwtConfig = jwtConfig;
+        this.tokenProvider = tokenProvider;
+        this.userDetailsService = userDetailsService;
+        this.serviceName = serviceName;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(jwtConfig.getHeader());
+        if (StringUtils.isEmpty(header) || !header.startsWith(jwtConfig.getPrefix())) {
+            return chain.filter(exchange);
+        }
+
+        return verifiedClaims(header)
+                .flatMap(this::authenticate)
+                .map(ReactiveSecurityContextHolder::withAuthentication)
+                .defaultIfEmpty(Context.empty())
+                .flatMap(context -> chain.filter(exchange).subscriberContext(context));
+    }
+
+    // a cached token is checked on the event loop, only the signature check of a new token is moved off it
+    private Mono<Claims> verifiedClaims(String header) {
+        Optional<Claims> cachedClaims = tokenProvider.cachedAuthorizationHeaderClaims(header);
+        if (cachedClaims.isPresent()) {
+            return Mono.justOrEmpty(tokenProvider.notRevoked(cachedClaims.get()));
+        }
+        return Mono.fromCallable(() -> tokenProvider.verifyAuthorizationHeader(header))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    private Mono<Authentication> authenticate(Claims claims) {
+        String userName = claims.getSubject();
+        if (userName.equals(serviceName)) {
+            List<String> authorities = (List<String>) claims.get("authorities");
+            return Mono.just(new UsernamePasswordAuthenticationToken(
+                    userName,
+                    null,
+                    authorities.stream().map(SimpleGrantedAuthority::new).collect(Collectors.toList())
+            ));
+        }
+        return Mono.justOrEmpty(tokenProvider.toCompactPrincipal(claims))
+                .cast(UserDetails.class)
+                .switchIfEmpty(Mono.defer(() -> userDetailsService.findByUsername(userName)))
+                .map(userDetails -> new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities()
+                ));
+    }
+}
@@ -1,50 +1,211 @@
 package com.instagram.auth.config;
 
+import com.instagram.auth.entity.InstagramUserDetails;
+import com.instagram.auth.entity.Profile;
+import com.instagram.auth.entity.Role;
+import com.instagram.auth.service.TokenRevocationService;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import java.security.Key;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class JwtTokenProvider {
 
+    public static final String USER_ID_CLAIM = "uid";
+
+    public static final String ROLES_CLAIM = "rol";
+
+    public static final String DISPLAY_NAME_CLAIM = "dn";
+
+    public static final String PICTURE_CLAIM = "pic";
+
     private final JwtConfig jwtConfig;
 
-    public JwtTokenProvider(JwtConfig jwtConfig) {
+    private final JwtVerifiedTokenCache verifiedTokenCache;
+
+    private final JwtKeyManager keyManager;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    private final JwtParser jwtParser;
+
+    private final Timer signTimer;
+
+    private final Timer parseValidTimer;
+
+    private final Timer parseInvalidTimer;
+
+    public JwtTokenProvider(JwtConfig jwtConfig, JwtVerifiedTokenCache verifiedTokenCache, JwtKeyManager keyManager,
+                            TokenRevocationService tokenRevocationService, MeterRegistry meterRegistry) {
         this.jwtConfig = jwtConfig;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.keyManager = keyManager;
+        this.tokenRevocationService = tokenRevocationService;
+        this.signTimer = Timer.builder("jwt.sign")
+                .register(meterRegistry);
+        this.parseValidTimer = Timer.builder("jwt.parse")
+                .tag("outcome", "valid")
+                .register(meterRegistry);
+        this.parseInvalidTimer = Timer.builder("jwt.parse")
+                .tag("outcome", "invalid")
+                .register(meterRegistry);
+        this.jwtParser = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                return keyManager.resolveVerificationKey(header.getKeyId(), header.getAlgorithm());
+            }
+        });
     }
 
     public String generateToken(Authentication authentication) {
+        long start = System.nanoTime();
+        try {
+            return buildToken(authentication);
+        } finally {
+            signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
+    private String buildToken(Authentication authentication) {
         Long now = System.currentTimeMillis();
-        return Jwts.builder()
-                .setSubject(authentication.getName())
-                .claim("authorities", authentication.getAuthorities().stream()
-                        .map(GrantedAuthority::getAuthority).collect(Collectors.toList()))
+        JwtSigningKey signingKey = keyManager.getSigningKey();
+        JwtBuilder builder = Jwts.builder();
+        if (signingKey.getKid() != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid());
+        }
+        builder.setId(newTokenId())
+                .setSubject(authentication.getName());
+        if (!(jwtConfig.isCompactPrincipal() && addCompactPrincipal(builder, authentication.getPrincipal()))) {
+            builder.claim("authorities", authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority).collect(Collectors.toList()));
+        }
+        return builder
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + jwtConfig.getExpiration() * 1000))  // in milliseconds
-                .signWith(SignatureAlgorithm.HS512, jwtConfig.getSecret().getBytes())
+                .signWith(signingKey.getAlgorithm(), signingKey.getSigningKey())
                 .compact();
     }
 
+    // the id only has to be unique, the signature already prevents forging it
+    private static String newTokenId() {
+        byte[] id = new byte[16];
+        ThreadLocalRandom.current().nextBytes(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+    }
+
+    private boolean addCompactPrincipal(JwtBuilder builder, Object principal) {
+        if (!(principal instanceof InstagramUserDetails)) {
+            return false;
+        }
+        InstagramUserDetails userDetails = (InstagramUserDetails) principal;
+        OptionalInt roles = Role.toBits(userDetails.getRoles());
+        if (!roles.isPresent()) {
+            return false;
+        }
+        builder.claim(USER_ID_CLAIM, userDetails.getId())
+                .claim(ROLES_CLAIM, roles.getAsInt());
+        Profile profile = userDetails.getUserProfile();
+        if (profile != null) {
+            builder.claim(DISPLAY_NAME_CLAIM, profile.getDisplayName())
+                    .claim(PICTURE_CLAIM, profile.getProfilePictureUrl());
+        }
+        return true;
+    }
+
+    public Optional<InstagramUserDetails> toCompactPrincipal(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        Integer roles = claims.get(ROLES_CLAIM, Integer.class);
+        if (userId == null || roles == null) {
+            return Optional.empty();
+        }
+        InstagramUserDetails userDetails = new InstagramUserDetails();
+        userDetails.setId(userId);
+        userDetails.setUsername(claims.getSubject());
+        userDetails.setActive(true);
+        userDetails.setRoles(Role.fromBits(roles));
+        userDetails.setUserProfile(Profile.builder()
+                .displayName(claims.get(DISPLAY_NAME_CLAIM, String.class))
+                .profilePictureUrl(claims.get(PICTURE_CLAIM, String.class))
+                .build());
+        return Optional.of(userDetails);
+    }
+
+    public Optional<Claims> verifyToken(String token) {
+        return verifyToken(token, 0);
+    }
+
+    // the token is read in place after the prefix, it is only copied out when it actually has to be parsed
+    public Optional<Claims> verifyAuthorizationHeader(String header) {
+        if (header == null || !header.startsWith(jwtConfig.getPrefix())) {
+            return Optional.empty();
+        }
+        return verifyToken(header, jwtConfig.getPrefix().length());
+    }
+
+    // only answers from the cache, so it never runs a signature check; empty when the token still needs one
+    public Optional<Claims> cachedAuthorizationHeaderClaims(String header) {
+        if (header == null || !header.startsWith(jwtConfig.getPrefix())) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(verifiedTokenCache.get(header, jwtConfig.getPrefix().length()));
+    }
+
+    private Optional<Claims> verifyToken(String value, int offset) {
+        Claims claims = verifiedTokenCache.get(value, offset);
+        if (claims == null) {
+            claims = parseClaims(offset == 0 ? value : value.substring(offset));
+            if (claims == null) {
+                return Optional.empty();
+            }
+            verifiedTokenCache.put(value, offset, claims);
+        }
+        return notRevoked(claims);
+    }
+
+    public Optional<Claims> notRevoked(Claims claims) {
+        if (tokenRevocationService.isRevoked(claims.getId())) {
+            log.debug("rejecting revoked token {}", claims.getId());
+            return Optional.empty();
+        }
+        return Optional.of(claims);
+    }
+
     public Claims getClaimsFromJWT(String token) {
-        return Jwts.parser()
-                .setSigningKey(jwtConfig.getSecret().getBytes())
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     public boolean validateToken(String authToken) {
+        return verifyToken(authToken).isPresent();
+    }
+
+    private Claims parseClaims(String authToken) {
+        long start = System.nanoTime();
+        Claims claims = doParseClaims(authToken);
+        (claims != null ? parseValidTimer : parseInvalidTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return claims;
+    }
+
+    private Claims doParseClaims(String authToken) {
         try {
-            Jwts.parser()
-                    .setSigningKey(jwtConfig.getSecret().getBytes())
-                    .parseClaimsJws(authToken);
-            return true;
+            return jwtParser
+                    .parseClaimsJws(authToken)
+                    .getBody();
         } catch (SignatureException ex) {
             log.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -56,6 +217,6 @@ public class JwtTokenProvider {
         } catch (IllegalArgumentException ex) {
             log.error("JWT claims string is empty.");
         }
-        return false;
+        return null;
     }
 }
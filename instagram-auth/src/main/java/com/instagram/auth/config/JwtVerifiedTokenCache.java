@@ -0,0 +1,128 @@
+package com.instagram.auth.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class JwtVerifiedTokenCache {
+
+    // one digest and buffer per thread, on virtual threads that means one per request
+    private static final ThreadLocal<DigestState> DIGESTS = ThreadLocal.withInitial(DigestState::new);
+
+    private final boolean enabled;
+
+    private final Cache<ByteBuffer, Claims> cache;
+
+    public JwtVerifiedTokenCache(JwtConfig jwtConfig, MeterRegistry meterRegistry) {
+        this.enabled = jwtConfig.isCacheEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(jwtConfig.getCacheMaxSize())
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-tokens");
+    }
+
+    public Claims get(String token) {
+        return get(token, 0);
+    }
+
+    public Claims get(String value, int offset) {
+        if (!enabled) {
+            return null;
+        }
+        ByteBuffer key = digest(value, offset);
+        return key != null ? cache.getIfPresent(key) : null;
+    }
+
+    public void put(String token, Claims claims) {
+        put(token, 0, claims);
+    }
+
+    public void put(String value, int offset, Claims claims) {
+        if (enabled && claims.getExpiration() != null) {
+            ByteBuffer key = digest(value, offset);
+            if (key != null) {
+                cache.put(key, claims);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // a signed token is base64url and dots, so the characters after the offset are fed to the digest through a small
+    // reused buffer instead of encoding the whole header into a new array; anything non-ASCII cannot be a valid token
+    // and gets no key, since one byte per char would let two different values share a digest
+    private static ByteBuffer digest(String value, int offset) {
+        DigestState state = DIGESTS.get();
+        byte[] chunk = state.chunk;
+        int length = value.length();
+        for (int start = offset; start < length; start += chunk.length) {
+            int end = Math.min(length, start + chunk.length);
+            for (int i = start; i < end; i++) {
+                char c = value.charAt(i);
+                if (c > 0x7F) {
+                    state.sha256.reset();
+                    return null;
+                }
+                chunk[i - start] = (byte) c;
+            }
+            state.sha256.update(chunk, 0, end - start);
+        }
+        // digest() also resets it for the next call on this thread
+        return ByteBuffer.wrap(state.sha256.digest());
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class DigestState {
+
+        private final MessageDigest sha256 = newSha256();
+
+        private final byte[] chunk = new byte[256];
+    }
+
+    private static class TokenExpiry implements Expiry<ByteBuffer, Claims> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            long remaining = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.instagram.auth.config;
+
+import com.instagram.auth.entity.OutboxEvent;
+import com.instagram.auth.entity.RevokedToken;
+import com.instagram.auth.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+
+@Slf4j
+@Component
+public class MongoIndexInitializer {
+
+    private static final List<Class<?>> INDEXED_DOCUMENTS = Arrays.asList(User.class, OutboxEvent.class, RevokedToken.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    private final MongoMappingContext mongoMappingContext;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mongoMappingContext) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongoMappingContext = mongoMappingContext;
+    }
+
+    @PostConstruct
+    public void ensureIndexes() {
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoMappingContext);
+        for (Class<?> documentType : INDEXED_DOCUMENTS) {
+            IndexOperations indexOperations = mongoTemplate.indexOps(documentType);
+            resolver.resolveIndexFor(documentType).forEach(index -> {
+                log.info("ensuring index {} on {}", index.getIndexOptions().get("name"), documentType.getSimpleName());
+                indexOperations.ensureIndex(index);
+            });
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.instagram.auth.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+@Slf4j
+public final class PasswordEncoderCalibrator {
+
+    private static final int PROBE_STRENGTH = 8;
+
+    private static final int SAMPLES = 5;
+
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private PasswordEncoderCalibrator() {
+    }
+
+    public static int calibrateBCryptStrength(long targetMillis, int minStrength, int maxStrength) {
+        // every extra BCrypt round doubles the work, so time a cheap strength and extrapolate
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_STRENGTH);
+        String hash = probe.encode(SAMPLE_PASSWORD);
+        probe.matches(SAMPLE_PASSWORD, hash);
+
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            probe.matches(SAMPLE_PASSWORD, hash);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        double probeMillis = samples[SAMPLES / 2] / 1_000_000.0;
+
+        long rounds = Math.round(PROBE_STRENGTH + Math.log(targetMillis / probeMillis) / Math.log(2));
+        int strength = (int) Math.max(minStrength, Math.min(maxStrength, rounds));
+        log.info("calibrated BCrypt strength {} for a {} ms target (~{} ms per verification)",
+                strength, targetMillis, Math.round(probeMillis * Math.pow(2, strength - PROBE_STRENGTH)));
+        return strength;
+    }
+
+    public static void main(String[] args) {
+        long targetMillis = args.length > 0 ? Long.parseLong(args[0]) : 250;
+        int minStrength = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int maxStrength = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        System.out.println(calibrateBCryptStrength(targetMillis, minStrength, maxStrength));
+    }
+}
@@ -0,0 +1,66 @@
+package com.instagram.auth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+public class PasswordEncoderConfig {
+
+    @Value("${security.password.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${security.password.bcrypt.target-millis:0}")
+    private long bcryptTargetMillis;
+
+    @Value("${security.password.bcrypt.min-strength:10}")
+    private int bcryptMinStrength;
+
+    @Value("${security.password.bcrypt.max-strength:16}")
+    private int bcryptMaxStrength;
+
+    @Value("${security.password.hashing.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int hashingThreads;
+
+    @Value("${security.password.hashing.queue-capacity:64}")
+    private int hashingQueueCapacity;
+
+    @Value("${security.password.hashing.max-wait:2000}")
+    private long hashingMaxWait;
+
+    @Value("${security.password.hashing.retry-after:1}")
+    private long hashingRetryAfter;
+
+    @Bean
+    @Primary
+    public PasswordEncoder passwordEncoder(@Qualifier("rawPasswordEncoder") PasswordEncoder rawPasswordEncoder,
+                                           MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(rawPasswordEncoder, hashingThreads, hashingQueueCapacity,
+                hashingMaxWait, hashingRetryAfter, meterRegistry);
+    }
+
+    // hashes on the calling thread, for bulk work that brings its own parallelism instead of queueing behind sign-ins
+    @Bean
+    public PasswordEncoder rawPasswordEncoder() {
+        int strength = bcryptTargetMillis > 0
+                ? PasswordEncoderCalibrator.calibrateBCryptStrength(bcryptTargetMillis, bcryptMinStrength, bcryptMaxStrength)
+                : bcryptStrength;
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        DelegatingPasswordEncoder delegatingPasswordEncoder = new DelegatingPasswordEncoder("bcrypt", encoders);
+        // hashes stored before the {id} prefix was introduced are plain BCrypt
+        delegatingPasswordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegatingPasswordEncoder;
+    }
+}
@@ -0,0 +1,95 @@
+package com.instagram.auth.config;
+
+import com.instagram.auth.entity.Role;
+import com.instagram.auth.service.impl.ReactiveInstagramUserDetailsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.core.userdetails.MapReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig {
+
+    @Value("${security.service.username}")
+    private String serviceUsername;
+
+    @Value("${security.service.password}")
+    private String servicePassword;
+
+    private final JwtTokenProvider tokenProvider;
+
+    private final JwtConfig jwtConfig;
+
+    private final ReactiveInstagramUserDetailsService userDetailsService;
+
+    private final PasswordEncoder passwordEncoder;
+
+    public ReactiveSecurityConfig(JwtTokenProvider tokenProvider, JwtConfig jwtConfig,
+                                  ReactiveInstagramUserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+        this.tokenProvider = tokenProvider;
+        this.jwtConfig = jwtConfig;
+        this.userDetailsService = userDetailsService;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .logout().disable()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling().authenticationEntryPoint((exchange, e) -> Mono.fromRunnable(() -> exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED)))
+                .and()
+                .addFilterAt(new JwtTokenAuthenticationWebFilter(jwtConfig, tokenProvider, userDetailsService, serviceUsername), SecurityWebFiltersOrder.AUTHENTICATION)
+                .authorizeExchange()
+                .pathMatchers(HttpMethod.POST, "/signin").permitAll()
+                .pathMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
+                // actuator is only served on management.server.port, which must stay off the public load balancer
+                .pathMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
+                .pathMatchers(HttpMethod.GET, "/availability").permitAll()
+                // same as anonymous() on the servlet side: only callers without a valid token may sign up
+                .pathMatchers(HttpMethod.POST, "/create").access((authentication, context) -> authentication
+                        .map(a -> new AuthorizationDecision(false))
+                        .defaultIfEmpty(new AuthorizationDecision(true)))
+                .anyExchange().authenticated()
+                .and()
+                .build();
+    }
+
+    @Bean
+    public ReactiveAuthenticationManager reactiveAuthenticationManager() {
+        MapReactiveUserDetailsService serviceUsers = new MapReactiveUserDetailsService(User
+                .withUsername(serviceUsername)
+                .password(passwordEncoder.encode(servicePassword))
+                .roles(Role.SERVICE.getName())
+                .build());
+        ReactiveUserDetailsService users = username -> serviceUsers.findByUsername(username)
+                .switchIfEmpty(Mono.defer(() -> userDetailsService.findByUsername(username)));
+
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager = new UserDetailsRepositoryReactiveAuthenticationManager(users);
+        authenticationManager.setPasswordEncoder(passwordEncoder);
+        authenticationManager.setUserDetailsPasswordService(userDetailsService);
+        authenticationManager.setScheduler(Schedulers.boundedElastic());
+        return authenticationManager;
+    }
+}
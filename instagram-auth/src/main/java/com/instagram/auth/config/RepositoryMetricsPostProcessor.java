@@ -0,0 +1,126 @@
+package com.instagram.auth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+    private static final String METRIC_NAME = "spring.data.repository.invocations";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public RepositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // repositories are already proxies, so the timing advice is added to them instead of proxying again
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof Repository && bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(0, new TimingInterceptor(repositoryName((Advised) bean, beanName)));
+        }
+        return bean;
+    }
+
+    private static String repositoryName(Advised advised, String beanName) {
+        for (Class<?> proxied : advised.getProxiedInterfaces()) {
+            if (Repository.class.isAssignableFrom(proxied) && !proxied.getName().startsWith("org.springframework.")) {
+                return ClassUtils.getShortName(proxied);
+            }
+        }
+        return beanName;
+    }
+
+    private enum State {
+        SUCCESS, ERROR, CANCELED
+    }
+
+    private class TimingInterceptor implements MethodInterceptor {
+
+        private final String repository;
+
+        private final Map<Method, Timer[]> timers = new ConcurrentHashMap<>();
+
+        TimingInterceptor(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invocation.proceed();
+            } catch (Throwable e) {
+                record(method, State.ERROR, start);
+                throw e;
+            }
+            // reactive queries only run once subscribed, so they are timed from subscription to termination
+            if (result instanceof Mono) {
+                Mono<?> mono = (Mono<?>) result;
+                return Mono.defer(() -> {
+                    long subscribed = System.nanoTime();
+                    return mono.doFinally(signal -> record(method, state(signal), subscribed));
+                });
+            }
+            if (result instanceof Flux) {
+                Flux<?> flux = (Flux<?>) result;
+                return Flux.defer(() -> {
+                    long subscribed = System.nanoTime();
+                    return flux.doFinally(signal -> record(method, state(signal), subscribed));
+                });
+            }
+            record(method, State.SUCCESS, start);
+            return result;
+        }
+
+        private State state(SignalType signal) {
+            switch (signal) {
+                case ON_ERROR:
+                    return State.ERROR;
+                case CANCEL:
+                    return State.CANCELED;
+                default:
+                    return State.SUCCESS;
+            }
+        }
+
+        private void record(Method method, State state, long start) {
+            timers.computeIfAbsent(method, this::register)[state.ordinal()]
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        private Timer[] register(Method method) {
+            MeterRegistry registry = meterRegistry.getObject();
+            State[] states = State.values();
+            Timer[] timers = new Timer[states.length];
+            for (State state : states) {
+                timers[state.ordinal()] = Timer.builder(METRIC_NAME)
+                        .tag("repository", repository)
+                        .tag("method", method.getName())
+                        .tag("state", state.name())
+                        .register(registry);
+            }
+            return timers;
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package com.instagram.auth.config;
 
 import com.instagram.auth.entity.Role;
-import com.instagram.auth.service.UserService;
+import com.instagram.auth.service.UserPrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,13 +18,14 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import javax.servlet.http.HttpServletResponse;
 
 @EnableWebSecurity
-@EnableGlobalMethodSecurity(prePostEnabled = true)
+@EnableGlobalMethodSecurity(prePostEnabled = true, securedEnabled = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityCredentialsConfig extends WebSecurityConfigurerAdapter {
 
     @Value("${security.service.username}")
@@ -32,12 +34,15 @@ public class SecurityCredentialsConfig extends WebSecurityConfigurerAdapter {
     @Value("${security.service.password}")
     private String servicePassword;
 
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
     @Autowired
     @Qualifier("instagramUserDetailsService")
     private UserDetailsService userDetailsService;
 
     @Autowired
-    private UserService userService;
+    private UserPrincipalCache userPrincipalCache;
 
     private final JwtTokenProvider tokenProvider;
 
@@ -57,9 +62,13 @@ public class SecurityCredentialsConfig extends WebSecurityConfigurerAdapter {
                 .and()
                 .exceptionHandling().authenticationEntryPoint((rep, rsp, e) -> rsp.sendError(HttpServletResponse.SC_UNAUTHORIZED))
                 .and()
-                .addFilterBefore(new JwtTokenAuthenticationFilter(jwtConfig, tokenProvider, userService, serviceUsername), UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(new JwtTokenAuthenticationFilter(jwtConfig, tokenProvider, userPrincipalCache, serviceUsername), UsernamePasswordAuthenticationFilter.class)
                 .authorizeRequests()
                 .antMatchers(HttpMethod.POST, "/signin").permitAll()
+                .antMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
+                // actuator is only served on management.server.port, which must stay off the public load balancer
+                .antMatchers(HttpMethod.GET, "/actuator/health", "/actuator/prometheus").permitAll()
+                .antMatchers(HttpMethod.GET, "/availability").permitAll()
                 .antMatchers(HttpMethod.POST, "/create").anonymous()
                 .anyRequest().authenticated();
 
@@ -79,15 +88,10 @@ public class SecurityCredentialsConfig extends WebSecurityConfigurerAdapter {
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
         auth.inMemoryAuthentication()
                 .withUser(serviceUsername)
-                .password(passwordEncoder().encode(servicePassword))
+                .password(passwordEncoder.encode(servicePassword))
                 .roles(Role.SERVICE.getName());
 
-        auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder());
-    }
-
-    @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder);
     }
 
     @Bean(BeanIds.AUTHENTICATION_MANAGER)
@@ -0,0 +1,18 @@
+package com.instagram.auth.config;
+
+import com.instagram.auth.message.codec.UserEventCodec;
+import com.instagram.auth.message.codec.UserEventMessageConverter;
+import org.springframework.cloud.stream.annotation.StreamMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+
+@Configuration
+public class StreamConfig {
+
+    @Bean
+    @StreamMessageConverter
+    public MessageConverter userEventMessageConverter(UserEventCodec userEventCodec) {
+        return new UserEventMessageConverter(userEventCodec);
+    }
+}
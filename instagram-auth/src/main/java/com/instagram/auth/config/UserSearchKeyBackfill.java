@@ -0,0 +1,77 @@
+package com.instagram.auth.config;
+
+import com.instagram.auth.entity.User;
+import com.instagram.auth.util.SearchKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+// users written before the search keys existed only show up in prefix search once this has run
+@Slf4j
+@Component
+public class UserSearchKeyBackfill {
+
+    private final MongoTemplate mongoTemplate;
+
+    private final int batchSize;
+
+    public UserSearchKeyBackfill(MongoTemplate mongoTemplate, @Value("${user.stream.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread backfill = new Thread(this::backfill, "user-search-key-backfill");
+        backfill.setDaemon(true);
+        backfill.start();
+    }
+
+    public long backfill() {
+        String collection = mongoTemplate.getCollectionName(User.class);
+        Query query = new Query(Criteria.where("usernameKey").exists(false)).cursorBatchSize(batchSize);
+        query.fields()
+                .include("username")
+                .include("userProfile.displayName");
+
+        long updated = 0;
+        int pending = 0;
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+        try (CloseableIterator<Document> users = mongoTemplate.stream(query, Document.class, collection)) {
+            while (users.hasNext()) {
+                Document user = users.next();
+                Document profile = user.get("userProfile", Document.class);
+                // a concurrent save already wrote current keys and must not be overwritten with stale ones
+                bulk.updateOne(
+                        new Query(Criteria.where("_id").is(user.get("_id")).and("usernameKey").exists(false)),
+                        new Update()
+                                .set("usernameKey", SearchKeys.normalize(user.getString("username")))
+                                .set("displayNameKey", profile != null ? SearchKeys.normalize(profile.getString("displayName")) : null));
+                if (++pending == batchSize) {
+                    updated += bulk.execute().getModifiedCount();
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                updated += bulk.execute().getModifiedCount();
+            }
+        } catch (RuntimeException e) {
+            log.warn("search key backfill stopped after {} users: {}", updated, e.getMessage());
+            return updated;
+        }
+        if (updated > 0) {
+            log.info("backfilled search keys of {} users", updated);
+        }
+        return updated;
+    }
+}
@@ -0,0 +1,14 @@
+package com.instagram.auth.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportFailure {
+    private long record;
+    private String username;
+    private String reason;
+}
@@ -0,0 +1,14 @@
+package com.instagram.auth.domain;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportResponse {
+    private long imported;
+    private long failed;
+    // capped, failed counts every rejected record
+    private List<ImportFailure> failures = new ArrayList<>();
+}
@@ -0,0 +1,20 @@
+package com.instagram.auth.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoginFailuresEvent {
+    private String instanceId;
+    private Map<String, Integer> usernames;
+    private Map<String, Integer> clientIps;
+    private Set<String> succeededUsernames;
+}
@@ -3,10 +3,12 @@ package com.instagram.auth.domain;
 import lombok.Data;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 
 @Data
 public class LoginRequest {
     @NotBlank
+    @Size(max = 100)
     private String username;
 
     @NotBlank
@@ -0,0 +1,28 @@
+package com.instagram.auth.domain;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.instagram.auth.entity.Address;
+import lombok.Data;
+
+import javax.validation.constraints.Size;
+import java.util.Date;
+import java.util.Set;
+
+// fields left null are not changed
+@Data
+public class ProfileUpdateRequest {
+    @Size(min = 3, max = 40)
+    private String displayName;
+
+    @Size(max = 2048)
+    private String profilePictureUrl;
+
+    private Date birthday;
+
+    private Set<Address> addresses;
+
+    @JsonIgnore
+    public boolean hasChanges() {
+        return displayName != null || profilePictureUrl != null || birthday != null || addresses != null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.instagram.auth.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRevokedEvent {
+    private String jti;
+    private String subject;
+    private long expiresAt;
+}
@@ -0,0 +1,14 @@
+package com.instagram.auth.domain;
+
+import com.instagram.auth.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class UserPage {
+    private List<User> content;
+    private String next;
+}
@@ -1,5 +1,6 @@
 package com.instagram.auth.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
@@ -10,4 +11,7 @@ public class UserSummary {
     private String username;
     private String name;
     private String profilePicture;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean missing;
 }
@@ -5,20 +5,44 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class InstagramUserDetails extends User implements UserDetails {
 
+    // keyed by Role.toBits, so principals with the same roles share one immutable authority set
+    private static final Map<Integer, Set<GrantedAuthority>> AUTHORITIES_BY_ROLES = new ConcurrentHashMap<>();
+
+    public InstagramUserDetails() {
+    }
+
     public InstagramUserDetails(final User user) {
         super(user);
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return getRoles()
+        Set<Role> roles = getRoles();
+        OptionalInt bits = Role.toBits(roles);
+        if (!bits.isPresent()) {
+            return toAuthorities(roles);
+        }
+        Set<GrantedAuthority> authorities = AUTHORITIES_BY_ROLES.get(bits.getAsInt());
+        if (authorities == null) {
+            authorities = AUTHORITIES_BY_ROLES.computeIfAbsent(bits.getAsInt(), key -> toAuthorities(roles));
+        }
+        return authorities;
+    }
+
+    private static Set<GrantedAuthority> toAuthorities(Collection<Role> roles) {
+        return Collections.unmodifiableSet(roles
                 .stream()
                 .map(role -> new SimpleGrantedAuthority("ROLE_" + role.getName()))
-                .collect(Collectors.toSet());
+                .collect(Collectors.toSet()));
     }
 
     @Override
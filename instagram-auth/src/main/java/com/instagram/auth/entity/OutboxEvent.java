@@ -0,0 +1,34 @@
+package com.instagram.auth.entity;
+
+import com.instagram.auth.domain.UserEventResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "userOutbox")
+public class OutboxEvent {
+    @Id
+    private String id;
+
+    private String aggregateId;
+
+    private UserEventResponse payload;
+
+    @Indexed
+    private Instant createdAt;
+
+    private int attempts;
+
+    @Indexed
+    private Instant nextAttemptAt;
+}
@@ -0,0 +1,20 @@
+package com.instagram.auth.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@Document(collection = "outboxLeases")
+public class OutboxLease {
+    @Id
+    private String id;
+
+    private String owner;
+
+    private Instant lockedUntil;
+}
@@ -0,0 +1,29 @@
+package com.instagram.auth.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "revokedTokens")
+public class RevokedToken {
+    @Id
+    private String id;
+
+    private String subject;
+
+    private Instant revokedAt;
+
+    // Mongo removes the entry once the token would have expired anyway
+    @Indexed(name = "expires_at_ttl", expireAfterSeconds = 0)
+    private Instant expiresAt;
+}
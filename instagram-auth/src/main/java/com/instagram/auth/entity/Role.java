@@ -4,11 +4,39 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.*;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Role {
     public final static Role USER = new Role("USER");
     public final static Role SERVICE = new Role("SERVICE");
+
+    // bit positions end up in issued tokens, so roles may only ever be appended
+    private final static List<Role> BITS = Collections.unmodifiableList(Arrays.asList(USER, SERVICE));
+
     private String name;
+
+    public static OptionalInt toBits(Collection<Role> roles) {
+        int bits = 0;
+        for (Role role : roles) {
+            int position = BITS.indexOf(role);
+            if (position < 0) {
+                return OptionalInt.empty();
+            }
+            bits |= 1 << position;
+        }
+        return OptionalInt.of(bits);
+    }
+
+    public static Set<Role> fromBits(int bits) {
+        Set<Role> roles = new HashSet<>();
+        for (int position = 0; position < BITS.size(); position++) {
+            if ((bits & 1 << position) != 0) {
+                roles.add(BITS.get(position));
+            }
+        }
+        return roles;
+    }
 }
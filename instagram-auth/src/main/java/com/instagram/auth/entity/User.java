@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.Email;
@@ -23,6 +24,10 @@ import java.util.Set;
 @AllArgsConstructor
 @Document
 public class User {
+    public final static String USERNAME_INDEX = "username_unique";
+    public final static String EMAIL_INDEX = "email_unique";
+    public final static String USERNAME_KEY_INDEX = "username_key";
+    public final static String DISPLAY_NAME_KEY_INDEX = "display_name_key";
 
     public User(User user) {
         this.id = user.id;
@@ -34,6 +39,8 @@ public class User {
         this.active = user.active;
         this.userProfile = user.userProfile;
         this.roles = user.roles;
+        this.usernameKey = user.usernameKey;
+        this.displayNameKey = user.displayNameKey;
     }
 
     public User(String username, String password, String email) {
@@ -49,6 +56,7 @@ public class User {
 
     @NotBlank
     @Size(max = 15)
+    @Indexed(name = USERNAME_INDEX, unique = true)
     private String username;
 
     @NotBlank
@@ -59,6 +67,7 @@ public class User {
     @NotBlank
     @Size(max = 40)
     @Email
+    @Indexed(name = EMAIL_INDEX, unique = true)
     private String email;
 
     @CreatedDate
@@ -70,4 +79,13 @@ public class User {
     private boolean active;
     private Profile userProfile;
     private Set<Role> roles;
+
+    // normalized copies for prefix search, kept current by the before-convert callbacks
+    @JsonIgnore
+    @Indexed(name = USERNAME_KEY_INDEX)
+    private String usernameKey;
+
+    @JsonIgnore
+    @Indexed(name = DISPLAY_NAME_KEY_INDEX)
+    private String displayNameKey;
 }
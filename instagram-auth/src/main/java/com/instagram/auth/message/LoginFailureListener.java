@@ -0,0 +1,24 @@
+package com.instagram.auth.message;
+
+import com.instagram.auth.domain.LoginFailuresEvent;
+import com.instagram.auth.service.LoginThrottleService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class LoginFailureListener {
+
+    private final LoginThrottleService loginThrottleService;
+
+    public LoginFailureListener(LoginThrottleService loginThrottleService) {
+        this.loginThrottleService = loginThrottleService;
+    }
+
+    @StreamListener(LoginFailureStream.INPUT)
+    public void onLoginFailures(LoginFailuresEvent event) {
+        log.debug("received login failures from instance {}", event.getInstanceId());
+        loginThrottleService.onLoginFailures(event);
+    }
+}
@@ -0,0 +1,7 @@
+package com.instagram.auth.message;
+
+import com.instagram.auth.domain.LoginFailuresEvent;
+
+public interface LoginFailureSender {
+    public void sendLoginFailures(LoginFailuresEvent event);
+}
@@ -0,0 +1,24 @@
+package com.instagram.auth.message;
+
+import com.instagram.auth.domain.TokenRevokedEvent;
+import com.instagram.auth.service.TokenRevocationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class TokenRevocationListener {
+
+    private final TokenRevocationService tokenRevocationService;
+
+    public TokenRevocationListener(TokenRevocationService tokenRevocationService) {
+        this.tokenRevocationService = tokenRevocationService;
+    }
+
+    @StreamListener(TokenRevocationStream.INPUT)
+    public void onTokenRevoked(TokenRevokedEvent event) {
+        log.debug("received revocation of a token for user {}", event.getSubject());
+        tokenRevocationService.onRevoked(event);
+    }
+}
@@ -0,0 +1,7 @@
+package com.instagram.auth.message;
+
+import com.instagram.auth.domain.TokenRevokedEvent;
+
+public interface TokenRevocationSender {
+    public void sendTokenRevoked(TokenRevokedEvent event);
+}
@@ -0,0 +1,17 @@
+package com.instagram.auth.message;
+
+import org.springframework.cloud.stream.annotation.Input;
+import org.springframework.cloud.stream.annotation.Output;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+
+public interface TokenRevocationStream {
+    String OUTPUT = "tokenRevoked";
+    String INPUT = "tokenRevokedEvents";
+
+    @Output(OUTPUT)
+    MessageChannel tokenRevoked();
+
+    @Input(INPUT)
+    SubscribableChannel tokenRevokedEvents();
+}
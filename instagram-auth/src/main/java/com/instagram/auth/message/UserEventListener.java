@@ -0,0 +1,31 @@
+package com.instagram.auth.message;
+
+import com.instagram.auth.domain.UserEventResponse;
+import com.instagram.auth.service.UserAvailabilityService;
+import com.instagram.auth.service.UserPrincipalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class UserEventListener {
+
+    private final UserPrincipalCache userPrincipalCache;
+
+    private final UserAvailabilityService userAvailabilityService;
+
+    public UserEventListener(UserPrincipalCache userPrincipalCache, UserAvailabilityService userAvailabilityService) {
+        this.userPrincipalCache = userPrincipalCache;
+        this.userAvailabilityService = userAvailabilityService;
+    }
+
+    @StreamListener(UserEventStream.INPUT)
+    public void onUserChanged(UserEventResponse event) {
+        log.debug("received user event {} for user {}", event.getEventType(), event.getUsername());
+        userPrincipalCache.invalidate(event.getUsername());
+        if (event.getEventType() == UserEventType.CREATED) {
+            userAvailabilityService.add(event.getUsername(), event.getEmail());
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.instagram.auth.message;
 
 import com.instagram.auth.entity.User;
 
+import java.util.List;
+
 public interface UserEventSender {
     public void sendUserCreated(User user);
+    public void sendUsersCreated(List<User> users);
     public void sendUserUpdated(User user);
     public void sendUserUpdated(User user, String oldPicUrl);
 }
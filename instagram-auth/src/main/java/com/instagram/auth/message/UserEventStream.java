@@ -1,11 +1,22 @@
 package com.instagram.auth.message;
 
+import org.springframework.cloud.stream.annotation.Input;
 import org.springframework.cloud.stream.annotation.Output;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
 
 public interface UserEventStream {
     String OUTPUT = "instagramUserChanged";
+    String RELAY_OUTPUT = "instagramUserChangedRelay";
+    String INPUT = "instagramUserChangedEvents";
 
     @Output(OUTPUT)
     MessageChannel instagramUserChanged();
+
+    // same topic, but a synchronous producer so the outbox relay only deletes what the broker acknowledged
+    @Output(RELAY_OUTPUT)
+    MessageChannel instagramUserChangedRelay();
+
+    @Input(INPUT)
+    SubscribableChannel instagramUserChangedEvents();
 }
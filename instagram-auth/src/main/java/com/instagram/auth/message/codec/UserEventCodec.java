@@ -0,0 +1,206 @@
+package com.instagram.auth.message.codec;
+
+import com.instagram.auth.domain.UserEventResponse;
+import com.instagram.auth.message.UserEventType;
+import com.instagram.auth.message.codec.UserEventSchema.Field;
+import com.instagram.auth.message.codec.UserEventSchema.FieldType;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Layout: magic byte, schema version, then a protobuf style key (tag << 3 | wire type) and value per
+// non-null field. Readers skip keys their schema does not know, so fields can be added without
+// breaking consumers that still run an older schema.
+@Component
+public class UserEventCodec {
+
+    public static final byte MAGIC = 0x55;
+
+    private static final int WIRE_VARINT = 0;
+
+    private static final int WIRE_LENGTH_DELIMITED = 2;
+
+    private static final Map<String, Function<UserEventResponse, String>> STRING_GETTERS = new HashMap<>();
+
+    private static final Map<String, BiConsumer<UserEventResponse, String>> STRING_SETTERS = new HashMap<>();
+
+    private static final UserEventType[] EVENT_TYPES = {null, UserEventType.CREATED, UserEventType.UPDATED};
+
+    static {
+        STRING_GETTERS.put("id", UserEventResponse::getId);
+        STRING_GETTERS.put("username", UserEventResponse::getUsername);
+        STRING_GETTERS.put("email", UserEventResponse::getEmail);
+        STRING_GETTERS.put("displayName", UserEventResponse::getDisplayName);
+        STRING_GETTERS.put("profilePictureUrl", UserEventResponse::getProfilePictureUrl);
+        STRING_GETTERS.put("oldProfilePicUrl", UserEventResponse::getOldProfilePicUrl);
+
+        STRING_SETTERS.put("id", UserEventResponse::setId);
+        STRING_SETTERS.put("username", UserEventResponse::setUsername);
+        STRING_SETTERS.put("email", UserEventResponse::setEmail);
+        STRING_SETTERS.put("displayName", UserEventResponse::setDisplayName);
+        STRING_SETTERS.put("profilePictureUrl", UserEventResponse::setProfilePictureUrl);
+        STRING_SETTERS.put("oldProfilePicUrl", UserEventResponse::setOldProfilePicUrl);
+    }
+
+    private final UserEventSchemaRegistry schemaRegistry;
+
+    public UserEventCodec(UserEventSchemaRegistry schemaRegistry) {
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    public byte[] encode(UserEventResponse event) {
+        UserEventSchema schema = schemaRegistry.getCurrentSchema();
+        Output output = new Output(128);
+        output.writeByte(MAGIC);
+        output.writeVarint(schema.getVersion());
+        for (Field field : schema.getFields()) {
+            if (field.getType() == FieldType.ENUM) {
+                int code = eventTypeCode(event.getEventType());
+                if (code > 0) {
+                    output.writeVarint(field.getTag() << 3 | WIRE_VARINT);
+                    output.writeVarint(code);
+                }
+                continue;
+            }
+            String value = STRING_GETTERS.get(field.getName()).apply(event);
+            if (value != null) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                output.writeVarint(field.getTag() << 3 | WIRE_LENGTH_DELIMITED);
+                output.writeVarint(bytes.length);
+                output.writeBytes(bytes);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    public UserEventResponse decode(byte[] bytes) {
+        Input input = new Input(bytes);
+        if (input.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a binary user event");
+        }
+        // events from a newer producer are read with the newest schema known here
+        UserEventSchema schema = schemaRegistry.findSchema(input.readVarint())
+                .orElseGet(schemaRegistry::getCurrentSchema);
+        UserEventResponse event = new UserEventResponse();
+        while (input.hasRemaining()) {
+            int key = input.readVarint();
+            int wireType = key & 0x7;
+            Field field = schema.field(key >>> 3);
+            if (wireType == WIRE_VARINT) {
+                int code = input.readVarint();
+                if (field != null && field.getType() == FieldType.ENUM) {
+                    event.setEventType(code < EVENT_TYPES.length ? EVENT_TYPES[code] : null);
+                }
+            } else if (wireType == WIRE_LENGTH_DELIMITED) {
+                int length = input.readVarint();
+                int offset = input.skip(length);
+                BiConsumer<UserEventResponse, String> setter = field != null ? STRING_SETTERS.get(field.getName()) : null;
+                if (setter != null) {
+                    setter.accept(event, new String(bytes, offset, length, StandardCharsets.UTF_8));
+                }
+            } else {
+                throw new IllegalArgumentException("Unsupported wire type " + wireType + " in user event");
+            }
+        }
+        return event;
+    }
+
+    private static int eventTypeCode(UserEventType eventType) {
+        for (int code = 1; code < EVENT_TYPES.length; code++) {
+            if (EVENT_TYPES[code] == eventType) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    static class Output {
+
+        private byte[] buffer;
+
+        private int position;
+
+        Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int needed) {
+            if (position + needed > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + needed));
+            }
+        }
+    }
+
+    static class Input {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        Input(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean hasRemaining() {
+            return position < buffer.length;
+        }
+
+        byte readByte() {
+            if (!hasRemaining()) {
+                throw new IllegalArgumentException("Truncated user event");
+            }
+            return buffer[position++];
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in user event");
+        }
+
+        int skip(int length) {
+            int start = position;
+            // compared against what is left so a huge length cannot overflow past the check
+            if (length < 0 || length > buffer.length - start) {
+                throw new IllegalArgumentException("Truncated user event");
+            }
+            position += length;
+            return start;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.instagram.auth.message.codec;
+
+import com.instagram.auth.domain.UserEventResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeType;
+
+public class UserEventMessageConverter extends AbstractMessageConverter {
+
+    public static final String CONTENT_TYPE_VALUE = "application/vnd.instagram.user-event+binary";
+
+    public static final MimeType CONTENT_TYPE = MimeType.valueOf(CONTENT_TYPE_VALUE);
+
+    private final UserEventCodec codec;
+
+    public UserEventMessageConverter(UserEventCodec codec) {
+        super(CONTENT_TYPE);
+        this.codec = codec;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return UserEventResponse.class.equals(clazz);
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        Object payload = message.getPayload();
+        return payload instanceof byte[] ? codec.decode((byte[]) payload) : null;
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        return codec.encode((UserEventResponse) payload);
+    }
+}
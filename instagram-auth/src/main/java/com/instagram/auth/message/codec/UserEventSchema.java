@@ -0,0 +1,31 @@
+package com.instagram.auth.message.codec;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class UserEventSchema {
+    int version;
+    List<Field> fields;
+
+    @Value
+    public static class Field {
+        int tag;
+        String name;
+        FieldType type;
+    }
+
+    public enum FieldType {
+        STRING, ENUM
+    }
+
+    public Field field(int tag) {
+        for (Field field : fields) {
+            if (field.getTag() == tag) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.instagram.auth.message.codec;
+
+import com.instagram.auth.message.codec.UserEventSchema.Field;
+import com.instagram.auth.message.codec.UserEventSchema.FieldType;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class UserEventSchemaRegistry {
+
+    public static final int CURRENT_VERSION = 1;
+
+    private final Map<Integer, UserEventSchema> schemas = new ConcurrentHashMap<>();
+
+    public UserEventSchemaRegistry() {
+        register(new UserEventSchema(1, Arrays.asList(
+                new Field(1, "id", FieldType.STRING),
+                new Field(2, "username", FieldType.STRING),
+                new Field(3, "email", FieldType.STRING),
+                new Field(4, "displayName", FieldType.STRING),
+                new Field(5, "profilePictureUrl", FieldType.STRING),
+                new Field(6, "oldProfilePicUrl", FieldType.STRING),
+                new Field(7, "eventType", FieldType.ENUM))));
+    }
+
+    public void register(UserEventSchema schema) {
+        schemas.put(schema.getVersion(), schema);
+    }
+
+    public Optional<UserEventSchema> findSchema(int version) {
+        return Optional.ofNullable(schemas.get(version));
+    }
+
+    public UserEventSchema getCurrentSchema() {
+        return schemas.get(CURRENT_VERSION);
+    }
+}
@@ -0,0 +1,31 @@
+package com.instagram.auth.message.impl;
+
+import com.instagram.auth.domain.LoginFailuresEvent;
+import com.instagram.auth.message.LoginFailureSender;
+import com.instagram.auth.message.LoginFailureStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+public class LoginFailureSenderImpl implements LoginFailureSender {
+
+    private final LoginFailureStream channels;
+
+    public LoginFailureSenderImpl(LoginFailureStream channels) {
+        this.channels = channels;
+    }
+
+    @Override
+    public void sendLoginFailures(LoginFailuresEvent event) {
+        Message<LoginFailuresEvent> message =
+                MessageBuilder
+                        .withPayload(event)
+                        .build();
+        channels.loginFailures().send(message);
+        log.debug("login failures for {} usernames and {} clients, {} resets sent to topic {}",
+                event.getUsernames().size(), event.getClientIps().size(), event.getSucceededUsernames().size(), LoginFailureStream.OUTPUT);
+    }
+}
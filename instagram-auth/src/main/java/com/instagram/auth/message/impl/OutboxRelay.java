@@ -0,0 +1,173 @@
+package com.instagram.auth.message.impl;
+
+import com.instagram.auth.domain.UserEventResponse;
+import com.instagram.auth.entity.OutboxEvent;
+import com.instagram.auth.entity.OutboxLease;
+import com.instagram.auth.message.UserEventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "user.events.outbox.enabled", havingValue = "true")
+public class OutboxRelay {
+
+    private static final String LEASE_ID = "userOutboxRelay";
+
+    private final MongoTemplate mongoTemplate;
+
+    private final UserEventSenderImpl userEventSender;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${user.events.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${user.events.outbox.lease-seconds:30}")
+    private long leaseSeconds;
+
+    @Value("${user.events.outbox.initial-backoff:500}")
+    private long initialBackoffMillis;
+
+    @Value("${user.events.outbox.max-backoff:60000}")
+    private long maxBackoffMillis;
+
+    public OutboxRelay(MongoTemplate mongoTemplate, UserEventSenderImpl userEventSender) {
+        this.mongoTemplate = mongoTemplate;
+        this.userEventSender = userEventSender;
+    }
+
+    @Scheduled(fixedDelayString = "${user.events.outbox.poll-interval:500}")
+    public void relay() {
+        // a single replica relays at a time so events for a user leave in the order they were written
+        while (acquireLease()) {
+            Instant now = Instant.now();
+            List<OutboxEvent> batch = mongoTemplate.find(readyQuery(now), OutboxEvent.class);
+            int delivered = relayBatch(batch, now);
+            if (batch.size() < batchSize || delivered == 0) {
+                return;
+            }
+        }
+    }
+
+    // entries still backing off do not occupy the batch, and every later entry of their user waits behind them
+    private Query readyQuery(Instant now) {
+        List<String> backingOff = mongoTemplate.findDistinct(new Query(Criteria.where("nextAttemptAt").gt(now)),
+                "aggregateId", OutboxEvent.class, String.class);
+        Criteria ready = new Criteria().orOperator(
+                Criteria.where("nextAttemptAt").lte(now),
+                Criteria.where("nextAttemptAt").is(null));
+        if (!backingOff.isEmpty()) {
+            ready = new Criteria().andOperator(ready, Criteria.where("aggregateId").nin(backingOff));
+        }
+        return new Query(ready)
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "id"))
+                .limit(batchSize);
+    }
+
+    private int relayBatch(List<OutboxEvent> batch, Instant now) {
+        Set<String> blockedAggregates = new HashSet<>();
+        List<String> delivered = new ArrayList<>();
+        for (Delivery delivery : coalesce(batch)) {
+            OutboxEvent first = delivery.events.get(0);
+            if (blockedAggregates.contains(first.getAggregateId())) {
+                continue;
+            }
+            if (send(delivery)) {
+                delivery.events.forEach(event -> delivered.add(event.getId()));
+            } else {
+                blockedAggregates.add(first.getAggregateId());
+                scheduleRetry(first, now);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where("id").in(delivered)), OutboxEvent.class);
+        }
+        return delivered.size();
+    }
+
+    // the outbox replaces the coalescing sender, so back-to-back updates of a user in one batch are merged here the
+    // same way; any other event of that user ends the run, and each user's events still leave in order
+    static List<Delivery> coalesce(List<OutboxEvent> batch) {
+        List<Delivery> deliveries = new ArrayList<>(batch.size());
+        Map<String, Delivery> lastByAggregate = new HashMap<>();
+        for (OutboxEvent event : batch) {
+            Delivery last = lastByAggregate.get(event.getAggregateId());
+            if (last != null && isUpdate(last.payload) && isUpdate(event.getPayload())) {
+                last.payload = UserEventCoalescer.merge(last.payload, event.getPayload());
+                last.events.add(event);
+            } else {
+                Delivery delivery = new Delivery(event);
+                deliveries.add(delivery);
+                lastByAggregate.put(event.getAggregateId(), delivery);
+            }
+        }
+        return deliveries;
+    }
+
+    private static boolean isUpdate(UserEventResponse payload) {
+        return payload.getEventType() == UserEventType.UPDATED;
+    }
+
+    private boolean send(Delivery delivery) {
+        OutboxEvent first = delivery.events.get(0);
+        try {
+            userEventSender.publishAndWait(delivery.payload);
+            if (delivery.events.size() > 1) {
+                log.debug("relayed {} coalesced user events for user {}", delivery.events.size(), first.getAggregateId());
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("could not relay user event {} for user {} (attempt {})",
+                    first.getId(), first.getAggregateId(), first.getAttempts() + 1, e);
+            return false;
+        }
+    }
+
+    private void scheduleRetry(OutboxEvent event, Instant now) {
+        long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(event.getAttempts(), 20));
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("id").is(event.getId())),
+                new Update().inc("attempts", 1).set("nextAttemptAt", now.plusMillis(backoff)),
+                OutboxEvent.class);
+    }
+
+    private boolean acquireLease() {
+        Instant now = Instant.now();
+        Query query = new Query(Criteria.where("id").is(LEASE_ID)
+                .orOperator(Criteria.where("lockedUntil").lt(now), Criteria.where("owner").is(instanceId)));
+        Update update = new Update()
+                .set("owner", instanceId)
+                .set("lockedUntil", now.plusSeconds(leaseSeconds));
+        try {
+            mongoTemplate.upsert(query, update, OutboxLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    static class Delivery {
+
+        final List<OutboxEvent> events = new ArrayList<>(1);
+
+        UserEventResponse payload;
+
+        Delivery(OutboxEvent event) {
+            this.events.add(event);
+            this.payload = event.getPayload();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.instagram.auth.message.impl;
+
+import com.instagram.auth.domain.UserEventResponse;
+import com.instagram.auth.entity.OutboxEvent;
+import com.instagram.auth.entity.User;
+import com.instagram.auth.message.UserEventSender;
+import com.instagram.auth.message.UserEventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Primary
+@Service
+@ConditionalOnProperty(value = "user.events.outbox.enabled", havingValue = "true")
+public class OutboxUserEventSender implements UserEventSender {
+
+    private final MongoTemplate mongoTemplate;
+
+    public OutboxUserEventSender(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        // as the primary sender this takes over every publish path, the relay does the coalescing instead
+        log.info("user events are written to the outbox: user.events.async.* and user.events.coalesce.window do not apply, "
+                + "the outbox relay merges consecutive updates of a user within a batch");
+    }
+
+    @Override
+    public void sendUserCreated(User user) {
+        enqueue(UserEventSenderImpl.toDTO(user, UserEventType.CREATED));
+    }
+
+    @Override
+    public void sendUsersCreated(List<User> users) {
+        Instant now = Instant.now();
+        mongoTemplate.insert(users.stream()
+                .map(user -> toOutboxEvent(UserEventSenderImpl.toDTO(user, UserEventType.CREATED), now))
+                .collect(Collectors.toList()), OutboxEvent.class);
+    }
+
+    @Override
+    public void sendUserUpdated(User user) {
+        enqueue(UserEventSenderImpl.toDTO(user, UserEventType.UPDATED));
+    }
+
+    @Override
+    public void sendUserUpdated(User user, String oldPicUrl) {
+        UserEventResponse userEventResponse = UserEventSenderImpl.toDTO(user, UserEventType.UPDATED);
+        userEventResponse.setOldProfilePicUrl(oldPicUrl);
+        enqueue(userEventResponse);
+    }
+
+    private void enqueue(UserEventResponse payload) {
+        log.debug("writing user event {} for user {} to the outbox", payload.getEventType(), payload.getUsername());
+        mongoTemplate.insert(toOutboxEvent(payload, Instant.now()));
+    }
+
+    private static OutboxEvent toOutboxEvent(UserEventResponse payload, Instant now) {
+        return OutboxEvent.builder()
+                .aggregateId(payload.getId())
+                .payload(payload)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.instagram.auth.message.impl;
+
+import com.instagram.auth.domain.TokenRevokedEvent;
+import com.instagram.auth.message.TokenRevocationSender;
+import com.instagram.auth.message.TokenRevocationStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+public class TokenRevocationSenderImpl implements TokenRevocationSender {
+
+    private final TokenRevocationStream channels;
+
+    public TokenRevocationSenderImpl(TokenRevocationStream channels) {
+        this.channels = channels;
+    }
+
+    @Override
+    public void sendTokenRevoked(TokenRevokedEvent event) {
+        Message<TokenRevokedEvent> message =
+                MessageBuilder
+                        .withPayload(event)
+                        .setHeader(KafkaHeaders.MESSAGE_KEY, event.getJti())
+                        .build();
+        channels.tokenRevoked().send(message);
+        log.debug("token revocation sent to topic {} for user {}", TokenRevocationStream.OUTPUT, event.getSubject());
+    }
+}
@@ -0,0 +1,75 @@
+package com.instagram.auth.message.impl;
+
+import com.instagram.auth.domain.UserEventResponse;
+import com.instagram.auth.message.UserEventType;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+class UserEventCoalescer {
+
+    private final long windowMillis;
+
+    private final Consumer<UserEventResponse> sink;
+
+    private final Counter coalesced;
+
+    private final ConcurrentMap<String, UserEventResponse> pending = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    UserEventCoalescer(long windowMillis, Consumer<UserEventResponse> sink, Counter coalesced) {
+        this.windowMillis = windowMillis;
+        this.sink = sink;
+        this.coalesced = coalesced;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-event-coalescer-");
+        threadFactory.setDaemon(true);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    void offer(UserEventResponse event) {
+        if (event.getEventType() != UserEventType.UPDATED) {
+            // anything else goes out right away, behind whatever is pending for the same user
+            flush(event.getId());
+            sink.accept(event);
+            return;
+        }
+        UserEventResponse current = pending.merge(event.getId(), event, UserEventCoalescer::merge);
+        if (current == event) {
+            scheduler.schedule(() -> flush(event.getId()), windowMillis, TimeUnit.MILLISECONDS);
+        } else {
+            coalesced.increment();
+        }
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+        pending.keySet().forEach(this::flush);
+    }
+
+    private void flush(String id) {
+        UserEventResponse event = pending.remove(id);
+        if (event != null) {
+            sink.accept(event);
+        }
+    }
+
+    static UserEventResponse merge(UserEventResponse earlier, UserEventResponse later) {
+        return UserEventResponse.builder()
+                .id(later.getId())
+                .eventType(later.getEventType())
+                .username(later.getUsername())
+                .email(later.getEmail())
+                .displayName(later.getDisplayName())
+                .profilePictureUrl(later.getProfilePictureUrl())
+                // the picture before the first update of the window, even when there was none, later ones are intermediate
+                .oldProfilePicUrl(earlier.getOldProfilePicUrl())
+                .build();
+    }
+}
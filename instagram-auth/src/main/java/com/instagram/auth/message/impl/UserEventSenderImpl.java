@@ -2,60 +2,188 @@ package com.instagram.auth.message.impl;
 
 import com.instagram.auth.domain.UserEventResponse;
 import com.instagram.auth.entity.User;
+import com.instagram.auth.config.VirtualThreads;
 import com.instagram.auth.message.UserEventSender;
 import com.instagram.auth.message.UserEventStream;
 import com.instagram.auth.message.UserEventType;
+import com.instagram.auth.message.codec.UserEventMessageConverter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.concurrent.*;
 
 @Slf4j
 @Service
-public class UserEventSenderImpl implements UserEventSender {
+public class UserEventSenderImpl implements UserEventSender, DisposableBean {
+
+    public static final String SEND_RESULTS_CHANNEL = "userEventSendResults";
+
+    public static final String SEND_ERRORS_CHANNEL = UserEventStream.OUTPUT + ".errors";
+
+    public enum OverflowPolicy {
+        BLOCK, DROP
+    }
+
+    public enum Format {
+        JSON, BINARY
+    }
 
     private final UserEventStream channels;
 
-    public UserEventSenderImpl(UserEventStream channels) {
+    private final MimeType contentType;
+
+    private final long blockTimeoutMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    private final UserEventCoalescer coalescer;
+
+    private final Timer handoffTimer;
+
+    private final Timer ackTimer;
+
+    private final Counter failures;
+
+    private final Counter dropped;
+
+    public UserEventSenderImpl(UserEventStream channels,
+                               MeterRegistry meterRegistry,
+                               @Value("${user.events.async.enabled:true}") boolean async,
+                               @Value("${user.events.async.buffer-size:10000}") int bufferSize,
+                               @Value("${user.events.async.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                               @Value("${user.events.async.block-timeout:5000}") long blockTimeoutMillis,
+                               @Value("${user.events.format:JSON}") Format format,
+                               @Value("${user.events.coalesce.window:0}") long coalesceWindowMillis,
+                               @Value("${" + VirtualThreads.ENABLED_PROPERTY + ":false}") boolean virtualThreads) {
         this.channels = channels;
+        this.contentType = format == Format.BINARY ? UserEventMessageConverter.CONTENT_TYPE : MimeTypeUtils.APPLICATION_JSON;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.executor = async ? newPublisherExecutor(bufferSize, overflowPolicy, virtualThreads) : null;
+
+        this.handoffTimer = Timer.builder("user.events.send")
+                .description("Time to hand a user event to the Kafka producer")
+                .register(meterRegistry);
+        this.ackTimer = Timer.builder("user.events.ack")
+                .description("Time from record creation until the broker acknowledged it")
+                .register(meterRegistry);
+        this.failures = Counter.builder("user.events.failed")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("user.events.dropped")
+                .register(meterRegistry);
+        this.coalescer = coalesceWindowMillis > 0
+                ? new UserEventCoalescer(coalesceWindowMillis, this::sendUserChangedEvent,
+                Counter.builder("user.events.coalesced").register(meterRegistry))
+                : null;
+        if (executor != null) {
+            Gauge.builder("user.events.buffer.size", executor, e -> e.getQueue().size())
+                    .register(meterRegistry);
+        }
     }
 
     @Override
     public void sendUserCreated(User user) {
-        log.info("sending user created event for user {}", user.getUsername());
-        sendUserChangedEvent(toDTO(user, UserEventType.CREATED));
+        dispatch(toDTO(user, UserEventType.CREATED));
+    }
+
+    // one queue slot per user, so a full buffer blocks or drops and counts single events, never a whole batch
+    @Override
+    public void sendUsersCreated(List<User> users) {
+        users.forEach(this::sendUserCreated);
     }
 
     @Override
     public void sendUserUpdated(User user) {
-        log.info("sending user updated event for user {}", user.getUsername());
-        sendUserChangedEvent(toDTO(user, UserEventType.UPDATED));
+        dispatch(toDTO(user, UserEventType.UPDATED));
     }
 
     @Override
     public void sendUserUpdated(User user, String oldPicUrl) {
-        log.info("sending user updated (profile pic changed) event for user {}", user.getUsername());
-        UserEventResponse userEventResponse = toDTO(user, UserEventType.CREATED);
+        UserEventResponse userEventResponse = toDTO(user, UserEventType.UPDATED);
         userEventResponse.setOldProfilePicUrl(oldPicUrl);
-        sendUserChangedEvent(userEventResponse);
+        dispatch(userEventResponse);
     }
 
-    private void sendUserChangedEvent(UserEventResponse payload) {
+    private void dispatch(UserEventResponse payload) {
+        if (coalescer != null) {
+            coalescer.offer(payload);
+        } else {
+            sendUserChangedEvent(payload);
+        }
+    }
 
+    public void sendUserChangedEvent(UserEventResponse payload) {
+        if (executor == null) {
+            publish(payload);
+            return;
+        }
+        executor.execute(() -> publish(payload));
+    }
+
+    public void publish(UserEventResponse payload) {
+        publish(payload, channels.instagramUserChanged());
+    }
+
+    // returns once the broker acknowledged the record and throws if it did not
+    public void publishAndWait(UserEventResponse payload) {
+        publish(payload, channels.instagramUserChangedRelay());
+    }
+
+    private void publish(UserEventResponse payload, MessageChannel channel) {
         Message<UserEventResponse> message =
                 MessageBuilder
                         .withPayload(payload)
                         .setHeader(KafkaHeaders.MESSAGE_KEY, payload.getId())
+                        .setHeader(MessageHeaders.CONTENT_TYPE, contentType)
                         .build();
-        channels.instagramUserChanged().send(message);
-        log.info("user event {} sent to topic {} for user {}",
-                message.getPayload().getEventType().name(),
-                channels.OUTPUT,
-                message.getPayload().getUsername());
+        handoffTimer.record(() -> channel.send(message));
+        log.debug("user event {} sent to topic {} for user {}",
+                payload.getEventType(), UserEventStream.OUTPUT, payload.getUsername());
+    }
+
+    @ServiceActivator(inputChannel = SEND_RESULTS_CHANNEL)
+    public void onSendResult(Message<?> result) {
+        RecordMetadata metadata = result.getHeaders().get(KafkaHeaders.RECORD_METADATA, RecordMetadata.class);
+        if (metadata != null && metadata.hasTimestamp()) {
+            ackTimer.record(Math.max(0, System.currentTimeMillis() - metadata.timestamp()), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @ServiceActivator(inputChannel = SEND_ERRORS_CHANNEL)
+    public void onSendFailure(ErrorMessage error) {
+        failures.increment();
+        log.error("failed to send user event to topic {}", UserEventStream.OUTPUT, error.getPayload());
     }
 
-    private UserEventResponse toDTO(User user, UserEventType eventType) {
+    @Override
+    public void destroy() throws InterruptedException {
+        if (coalescer != null) {
+            coalescer.shutdown();
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    static UserEventResponse toDTO(User user, UserEventType eventType) {
         return UserEventResponse.builder()
                 .id(user.getId())
                 .eventType(eventType)
@@ -65,4 +193,44 @@ public class UserEventSenderImpl implements UserEventSender {
                 .profilePictureUrl(user.getUserProfile().getProfilePictureUrl())
                 .build();
     }
+
+    private ThreadPoolExecutor newPublisherExecutor(int bufferSize, OverflowPolicy overflowPolicy, boolean virtualThreads) {
+        ThreadFactory threadFactory;
+        if (virtualThreads) {
+            threadFactory = VirtualThreads.threadFactory("user-event-publisher-");
+        } else {
+            CustomizableThreadFactory platformThreadFactory = new CustomizableThreadFactory("user-event-publisher-");
+            platformThreadFactory.setDaemon(true);
+            threadFactory = platformThreadFactory;
+        }
+        // one publisher thread keeps events in the order they were produced, as long as callers never publish
+        // themselves: a full buffer blocks or drops, it does not run the event on the calling thread
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(bufferSize), threadFactory, rejectionHandler(overflowPolicy));
+    }
+
+    private RejectedExecutionHandler rejectionHandler(OverflowPolicy overflowPolicy) {
+        return (task, executor) -> {
+            if (executor.isShutdown()) {
+                dropped.increment();
+                log.warn("user event publisher is shut down, dropping event");
+                return;
+            }
+            if (overflowPolicy == OverflowPolicy.BLOCK && offer(executor, task)) {
+                return;
+            }
+            dropped.increment();
+            log.warn("user event buffer is full, dropping event");
+        };
+    }
+
+    // back pressure on the producing request instead of letting it overtake the queued events
+    private boolean offer(ThreadPoolExecutor executor, Runnable task) {
+        try {
+            return executor.getQueue().offer(task, blockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package com.instagram.auth.repository;
+
+import com.instagram.auth.domain.ProfileUpdateRequest;
+import com.instagram.auth.domain.UserSummary;
+import com.instagram.auth.entity.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public interface ReactiveUserRepositoryCustom {
+    Flux<User> findPageAfter(String afterId, int size);
+
+    Flux<User> streamAll(int batchSize);
+
+    Flux<UserSummary> findSummariesByUsernameIn(Collection<String> usernames);
+
+    Mono<User> updateProfile(String id, ProfileUpdateRequest request);
+
+    Mono<Boolean> updatePassword(String id, String currentPassword, String newPassword);
+
+    Flux<UserSummary> findSummariesByUsernamePrefix(String prefix, int limit);
+
+    Flux<UserSummary> findSummariesByDisplayNamePrefix(String prefix, int limit);
+}
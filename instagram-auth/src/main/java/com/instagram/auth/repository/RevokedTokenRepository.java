@@ -0,0 +1,13 @@
+package com.instagram.auth.repository;
+
+import com.instagram.auth.entity.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.stream.Stream;
+
+@Repository
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+    Stream<RevokedToken> findByExpiresAtAfter(Instant instant);
+}
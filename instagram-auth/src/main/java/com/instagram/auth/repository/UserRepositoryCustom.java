@@ -0,0 +1,35 @@
+package com.instagram.auth.repository;
+
+import com.instagram.auth.domain.ProfileUpdateRequest;
+import com.instagram.auth.domain.UserSummary;
+import com.instagram.auth.entity.User;
+import com.mongodb.bulk.BulkWriteError;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+public interface UserRepositoryCustom {
+    List<User> findPageAfter(String afterId, int size);
+
+    long streamAll(int batchSize, Consumer<User> consumer);
+
+    List<UserSummary> findSummariesByUsernameIn(Collection<String> usernames);
+
+    List<UserSummary> findSummariesByUsernamePrefix(String prefix, int limit);
+
+    List<UserSummary> findSummariesByDisplayNamePrefix(String prefix, int limit);
+
+    // returns the document as it was before the update, the caller applies the request to get the new state
+    Optional<User> updateProfile(String id, ProfileUpdateRequest request);
+
+    // only replaces the hash while it is still currentPassword, so a repeated or concurrent upgrade is a no-op
+    boolean updatePassword(String id, String currentPassword, String newPassword);
+
+    // inserts every user it can and returns the failures, indexed by position in the given list
+    List<BulkWriteError> insertUnordered(List<User> users);
+
+    long streamUsernamesAndEmails(int batchSize, BiConsumer<String, String> consumer);
+}
@@ -0,0 +1,67 @@
+package com.instagram.auth.repository.impl;
+
+import com.instagram.auth.domain.ProfileUpdateRequest;
+import com.instagram.auth.domain.UserSummary;
+import com.instagram.auth.entity.User;
+import com.instagram.auth.repository.ReactiveUserRepositoryCustom;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+public class ReactiveUserRepositoryCustomImpl implements ReactiveUserRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReactiveUserRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    @Override
+    public Flux<User> findPageAfter(String afterId, int size) {
+        return reactiveMongoTemplate.find(UserRepositoryCustomImpl.pageAfterQuery(afterId, size), User.class);
+    }
+
+    @Override
+    public Flux<User> streamAll(int batchSize) {
+        return reactiveMongoTemplate.find(UserRepositoryCustomImpl.streamAllQuery(batchSize), User.class);
+    }
+
+    @Override
+    public Flux<UserSummary> findSummariesByUsernameIn(Collection<String> usernames) {
+        return findSummaries(UserRepositoryCustomImpl.summariesQuery(usernames));
+    }
+
+    @Override
+    public Mono<User> updateProfile(String id, ProfileUpdateRequest request) {
+        return reactiveMongoTemplate.findAndModify(UserRepositoryCustomImpl.byIdQuery(id),
+                UserRepositoryCustomImpl.profileUpdate(request), FindAndModifyOptions.options().returnNew(false), User.class);
+    }
+
+    @Override
+    public Mono<Boolean> updatePassword(String id, String currentPassword, String newPassword) {
+        return reactiveMongoTemplate.updateFirst(UserRepositoryCustomImpl.passwordQuery(id, currentPassword),
+                UserRepositoryCustomImpl.passwordUpdate(newPassword), User.class)
+                .map(result -> result.getModifiedCount() > 0);
+    }
+
+    @Override
+    public Flux<UserSummary> findSummariesByUsernamePrefix(String prefix, int limit) {
+        return findSummaries(UserRepositoryCustomImpl.prefixQuery("usernameKey", prefix, limit));
+    }
+
+    @Override
+    public Flux<UserSummary> findSummariesByDisplayNamePrefix(String prefix, int limit) {
+        return findSummaries(UserRepositoryCustomImpl.prefixQuery("displayNameKey", prefix, limit));
+    }
+
+    private Flux<UserSummary> findSummaries(Query query) {
+        return reactiveMongoTemplate
+                .find(query, Document.class, reactiveMongoTemplate.getCollectionName(User.class))
+                .map(UserRepositoryCustomImpl::toSummary);
+    }
+}
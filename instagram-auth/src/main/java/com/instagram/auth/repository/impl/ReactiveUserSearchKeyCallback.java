@@ -0,0 +1,17 @@
+package com.instagram.auth.repository.impl;
+
+import com.instagram.auth.entity.User;
+import org.reactivestreams.Publisher;
+import org.springframework.data.mongodb.core.mapping.event.ReactiveBeforeConvertCallback;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+public class ReactiveUserSearchKeyCallback implements ReactiveBeforeConvertCallback<User> {
+
+    @Override
+    public Publisher<User> onBeforeConvert(User user, String collection) {
+        UserSearchKeyCallback.updateSearchKeys(user);
+        return Mono.just(user);
+    }
+}
@@ -0,0 +1,212 @@
+package com.instagram.auth.repository.impl;
+
+import com.instagram.auth.domain.ProfileUpdateRequest;
+import com.instagram.auth.domain.UserSummary;
+import com.instagram.auth.entity.User;
+import com.instagram.auth.repository.UserRepositoryCustom;
+import com.instagram.auth.util.SearchKeys;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<User> findPageAfter(String afterId, int size) {
+        return mongoTemplate.find(pageAfterQuery(afterId, size), User.class);
+    }
+
+    @Override
+    public long streamAll(int batchSize, Consumer<User> consumer) {
+        long count = 0;
+        try (CloseableIterator<User> users = mongoTemplate.stream(streamAllQuery(batchSize), User.class)) {
+            while (users.hasNext()) {
+                consumer.accept(users.next());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public List<UserSummary> findSummariesByUsernameIn(Collection<String> usernames) {
+        return findSummaries(summariesQuery(usernames));
+    }
+
+    @Override
+    public List<UserSummary> findSummariesByUsernamePrefix(String prefix, int limit) {
+        return findSummaries(prefixQuery("usernameKey", prefix, limit));
+    }
+
+    @Override
+    public List<UserSummary> findSummariesByDisplayNamePrefix(String prefix, int limit) {
+        return findSummaries(prefixQuery("displayNameKey", prefix, limit));
+    }
+
+    private List<UserSummary> findSummaries(Query query) {
+        List<Document> documents = mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(User.class));
+        List<UserSummary> summaries = new ArrayList<>(documents.size());
+        documents.forEach(document -> summaries.add(toSummary(document)));
+        return summaries;
+    }
+
+    @Override
+    public Optional<User> updateProfile(String id, ProfileUpdateRequest request) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(byIdQuery(id), profileUpdate(request),
+                FindAndModifyOptions.options().returnNew(false), User.class));
+    }
+
+    @Override
+    public boolean updatePassword(String id, String currentPassword, String newPassword) {
+        return mongoTemplate.updateFirst(passwordQuery(id, currentPassword), passwordUpdate(newPassword), User.class)
+                .getModifiedCount() > 0;
+    }
+
+    @Override
+    public List<BulkWriteError> insertUnordered(List<User> users) {
+        if (users.isEmpty()) {
+            return Collections.emptyList();
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class)
+                    .insert(users)
+                    .execute();
+            return Collections.emptyList();
+        } catch (BulkOperationException e) {
+            return e.getErrors();
+        }
+    }
+
+    @Override
+    public long streamUsernamesAndEmails(int batchSize, BiConsumer<String, String> consumer) {
+        long count = 0;
+        try (CloseableIterator<Document> users = mongoTemplate.stream(usernamesAndEmailsQuery(batchSize), Document.class, mongoTemplate.getCollectionName(User.class))) {
+            while (users.hasNext()) {
+                Document user = users.next();
+                consumer.accept(user.getString("username"), user.getString("email"));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static Query pageAfterQuery(String afterId, int size) {
+        Query query = new Query();
+        if (afterId != null) {
+            query.addCriteria(Criteria.where("id").gt(new ObjectId(afterId)));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "id")).limit(size);
+        query.fields().exclude("password");
+        return query;
+    }
+
+    static Query streamAllQuery(int batchSize) {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.ASC, "id"))
+                .cursorBatchSize(batchSize);
+        query.fields().exclude("password");
+        return query;
+    }
+
+    static Query summariesQuery(Collection<String> usernames) {
+        return includeSummaryFields(new Query(Criteria.where("username").in(usernames)));
+    }
+
+    // an anchored range over the normalized key, walked in index order so the limit stops the scan early
+    static Query prefixQuery(String key, String prefix, int limit) {
+        Criteria criteria = Criteria.where(key).gte(prefix);
+        String upperBound = SearchKeys.prefixUpperBound(prefix);
+        if (upperBound != null) {
+            criteria.lt(upperBound);
+        }
+        return includeSummaryFields(new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, key))
+                .limit(limit));
+    }
+
+    private static Query includeSummaryFields(Query query) {
+        query.fields()
+                .include("username")
+                .include("userProfile.displayName")
+                .include("userProfile.profilePictureUrl");
+        return query;
+    }
+
+    static Query byIdQuery(String id) {
+        Query query = new Query(Criteria.where("id").is(id));
+        query.fields().exclude("password");
+        return query;
+    }
+
+    static Query passwordQuery(String id, String currentPassword) {
+        return new Query(Criteria.where("id").is(id).and("password").is(currentPassword));
+    }
+
+    // only the hash is written, a full save would put back a stale copy of fields updated in the meantime
+    static Update passwordUpdate(String newPassword) {
+        return new Update().set("password", newPassword);
+    }
+
+    // findAndModify bypasses the entity callbacks, so the search key is set here as well
+    static Update profileUpdate(ProfileUpdateRequest request) {
+        Update update = new Update();
+        if (request.getDisplayName() != null) {
+            update.set("userProfile.displayName", request.getDisplayName());
+            update.set("displayNameKey", SearchKeys.normalize(request.getDisplayName()));
+        }
+        if (request.getProfilePictureUrl() != null) {
+            update.set("userProfile.profilePictureUrl", request.getProfilePictureUrl());
+        }
+        if (request.getBirthday() != null) {
+            update.set("userProfile.birthday", request.getBirthday());
+        }
+        if (request.getAddresses() != null) {
+            update.set("userProfile.addresses", request.getAddresses());
+        }
+        update.set("updatedAt", Instant.now());
+        return update;
+    }
+
+    static Query usernamesAndEmailsQuery(int batchSize) {
+        Query query = new Query().cursorBatchSize(batchSize);
+        query.fields()
+                .include("username")
+                .include("email")
+                .exclude("_id");
+        return query;
+    }
+
+    static UserSummary toSummary(Document document) {
+        Document profile = document.get("userProfile", Document.class);
+        return UserSummary.builder()
+                .id(document.get("_id").toString())
+                .username(document.getString("username"))
+                .name(profile != null ? profile.getString("displayName") : null)
+                .profilePicture(profile != null ? profile.getString("profilePictureUrl") : null)
+                .build();
+    }
+}
@@ -0,0 +1,21 @@
+package com.instagram.auth.repository.impl;
+
+import com.instagram.auth.entity.User;
+import com.instagram.auth.util.SearchKeys;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserSearchKeyCallback implements BeforeConvertCallback<User> {
+
+    @Override
+    public User onBeforeConvert(User user, String collection) {
+        updateSearchKeys(user);
+        return user;
+    }
+
+    static void updateSearchKeys(User user) {
+        user.setUsernameKey(SearchKeys.normalize(user.getUsername()));
+        user.setDisplayNameKey(user.getUserProfile() != null ? SearchKeys.normalize(user.getUserProfile().getDisplayName()) : null);
+    }
+}
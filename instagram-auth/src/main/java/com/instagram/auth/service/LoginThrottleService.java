@@ -0,0 +1,11 @@
+package com.instagram.auth.service;
+
+import com.instagram.auth.domain.LoginFailuresEvent;
+
+public interface LoginThrottleService {
+    public void checkAllowed(String username, String clientIp);
+    public void loginSucceeded(String username, String clientIp);
+    public void loginFailed(String username, String clientIp);
+    public void loginAborted(String username, String clientIp);
+    public void onLoginFailures(LoginFailuresEvent event);
+}
@@ -0,0 +1,23 @@
+package com.instagram.auth.service;
+
+import com.instagram.auth.domain.AvailabilityResponse;
+import com.instagram.auth.domain.ProfileUpdateRequest;
+import com.instagram.auth.domain.UserPage;
+import com.instagram.auth.domain.UserSummary;
+import com.instagram.auth.entity.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveUserService {
+    public Mono<UserPage> findAll(String afterId, int size);
+    public Flux<User> streamAll();
+    public Mono<User> findByUsername(String username);
+    public Flux<UserSummary> findSummariesByUsernameIn(List<String> usernames);
+    public Flux<UserSummary> search(String query, int limit);
+    public Mono<AvailabilityResponse> checkAvailability(String username, String email);
+    public Mono<User> registerUser(User user);
+    public Mono<User> updateProfile(String id, ProfileUpdateRequest request);
+    public Mono<User> updateProfilePicture(String uri, String id);
+}
@@ -0,0 +1,10 @@
+package com.instagram.auth.service;
+
+import com.instagram.auth.domain.TokenRevokedEvent;
+import io.jsonwebtoken.Claims;
+
+public interface TokenRevocationService {
+    public void revoke(Claims claims);
+    public boolean isRevoked(String jti);
+    public void onRevoked(TokenRevokedEvent event);
+}
@@ -0,0 +1,9 @@
+package com.instagram.auth.service;
+
+public interface UserAvailabilityService {
+    public boolean mightHaveUsername(String username);
+    public boolean mightHaveEmail(String email);
+    public boolean isUsernameAvailable(String username);
+    public boolean isEmailAvailable(String email);
+    public void add(String username, String email);
+}
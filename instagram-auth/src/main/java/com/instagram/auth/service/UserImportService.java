@@ -0,0 +1,15 @@
+package com.instagram.auth.service;
+
+import com.instagram.auth.domain.ImportResponse;
+import com.instagram.auth.domain.SignUpRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+public interface UserImportService {
+    public ImportResponse importUsers(InputStream ndjson) throws IOException;
+    public ImportResponse importUsers(List<SignUpRequest> records, long firstRecord);
+    public ImportResponse merge(ImportResponse left, ImportResponse right);
+    public int getBatchSize();
+}
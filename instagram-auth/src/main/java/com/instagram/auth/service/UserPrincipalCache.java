@@ -0,0 +1,16 @@
+package com.instagram.auth.service;
+
+import com.instagram.auth.entity.InstagramUserDetails;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+public interface UserPrincipalCache {
+    public Optional<InstagramUserDetails> findByUsername(String username);
+    public CompletableFuture<Optional<InstagramUserDetails>> findByUsernameAsync(
+            String username, Function<String, CompletionStage<Optional<InstagramUserDetails>>> loader);
+    public void invalidate(String username);
+    public void invalidateAll();
+}
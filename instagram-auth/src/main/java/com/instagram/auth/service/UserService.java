@@ -1,14 +1,24 @@
 package com.instagram.auth.service;
 
+import com.instagram.auth.domain.AvailabilityResponse;
+import com.instagram.auth.domain.ProfileUpdateRequest;
+import com.instagram.auth.domain.UserPage;
+import com.instagram.auth.domain.UserSummary;
 import com.instagram.auth.entity.User;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserService {
-    public List<User> findAll();
+    public UserPage findAll(String afterId, int size);
+    public long streamAll(Consumer<User> consumer);
     public Optional<User> findByUsername(String username);
     public List<User> findByUsernameIn(List<String> usernames);
+    public List<UserSummary> findSummariesByUsernameIn(List<String> usernames);
+    public List<UserSummary> search(String query, int limit);
+    public AvailabilityResponse checkAvailability(String username, String email);
     public User registerUser(User user);
+    public User updateProfile(String id, ProfileUpdateRequest request);
     public User updateProfilePicture(String uri, String id);
 }
@@ -1,25 +1,43 @@
 package com.instagram.auth.service.impl;
 
 import com.instagram.auth.entity.InstagramUserDetails;
-import com.instagram.auth.service.UserService;
+import com.instagram.auth.repository.UserRepository;
+import com.instagram.auth.service.UserPrincipalCache;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+@Slf4j
 @Service
-public class InstagramUserDetailsService implements UserDetailsService {
+public class InstagramUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
-    private final UserService userService;
+    private final UserPrincipalCache userPrincipalCache;
 
-    public InstagramUserDetailsService(UserService userService) {
-        this.userService = userService;
+    private final UserRepository userRepository;
+
+    public InstagramUserDetailsService(UserPrincipalCache userPrincipalCache, UserRepository userRepository) {
+        this.userPrincipalCache = userPrincipalCache;
+        this.userRepository = userRepository;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userService.findByUsername(username)
-                .map(InstagramUserDetails::new)
+        return userPrincipalCache.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Username not found"));
     }
+
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        log.info("upgrading password hash for user {}", user.getUsername());
+        InstagramUserDetails userDetails = (InstagramUserDetails) user;
+        userRepository.updatePassword(userDetails.getId(), userDetails.getPassword(), newPassword);
+        userPrincipalCache.invalidate(user.getUsername());
+
+        InstagramUserDetails upgraded = new InstagramUserDetails(userDetails);
+        upgraded.setPassword(newPassword);
+        return upgraded;
+    }
 }
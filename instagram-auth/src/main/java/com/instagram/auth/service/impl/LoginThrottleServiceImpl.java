@@ -0,0 +1,271 @@
+package com.instagram.auth.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.instagram.auth.domain.LoginFailuresEvent;
+import com.instagram.auth.exception.LoginThrottledException;
+import com.instagram.auth.message.LoginFailureSender;
+import com.instagram.auth.service.LoginThrottleService;
+import com.instagram.auth.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class LoginThrottleServiceImpl implements LoginThrottleService {
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final boolean enabled;
+
+    private final boolean shareFailures;
+
+    private final int maxKeys;
+
+    private final Limit ipAttempts;
+
+    private final Limit ipFailures;
+
+    private final Limit usernameFailures;
+
+    private final LoginFailureSender loginFailureSender;
+
+    private final Counter usernameLocked;
+
+    private final Counter ipLocked;
+
+    private final Counter ipRateLimited;
+
+    private final PendingFailures pending = new PendingFailures();
+
+    public LoginThrottleServiceImpl(LoginFailureSender loginFailureSender,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${security.login.throttle.enabled:true}") boolean enabled,
+                                    @Value("${security.login.throttle.share-failures:true}") boolean shareFailures,
+                                    @Value("${security.login.throttle.max-keys:100000}") int maxKeys,
+                                    @Value("${security.login.throttle.ip-attempts-per-minute:60}") int ipAttemptsPerMinute,
+                                    @Value("${security.login.throttle.ip-burst:20}") int ipBurst,
+                                    @Value("${security.login.throttle.ip-max-failures:50}") int ipMaxFailures,
+                                    @Value("${security.login.throttle.username-max-failures:5}") int usernameMaxFailures,
+                                    @Value("${security.login.throttle.failure-window:900}") long failureWindowSeconds) {
+        this.loginFailureSender = loginFailureSender;
+        this.enabled = enabled;
+        this.shareFailures = shareFailures;
+        this.maxKeys = maxKeys;
+        long failureWindow = TimeUnit.SECONDS.toNanos(failureWindowSeconds);
+        this.ipAttempts = new Limit(ipBurst, TimeUnit.MINUTES.toNanos(1) / ipAttemptsPerMinute, maxKeys);
+        this.ipFailures = new Limit(ipMaxFailures, failureWindow / ipMaxFailures, maxKeys);
+        this.usernameFailures = new Limit(usernameMaxFailures, failureWindow / usernameMaxFailures, maxKeys);
+        this.usernameLocked = Counter.builder("security.login.throttled")
+                .tag("reason", "username-locked")
+                .register(meterRegistry);
+        this.ipLocked = Counter.builder("security.login.throttled")
+                .tag("reason", "ip-locked")
+                .register(meterRegistry);
+        this.ipRateLimited = Counter.builder("security.login.throttled")
+                .tag("reason", "ip-rate")
+                .register(meterRegistry);
+    }
+
+    // every attempt takes a failure token up front, so concurrent guesses cannot all pass the check before the
+    // first failure is counted; the outcome of the attempt decides whether the token is kept or given back
+    @Override
+    public void checkAllowed(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        TokenBucket usernameBucket = usernameFailures.bucket(username, now);
+        if (!usernameBucket.tryConsume(now)) {
+            usernameLocked.increment();
+            throw throttled(usernameBucket, now);
+        }
+        TokenBucket ipFailureBucket = ipFailures.bucket(clientIp, now);
+        if (!ipFailureBucket.tryConsume(now)) {
+            usernameBucket.release(now);
+            ipLocked.increment();
+            throw throttled(ipFailureBucket, now);
+        }
+        TokenBucket ipBucket = ipAttempts.bucket(clientIp, now);
+        if (!ipBucket.tryConsume(now)) {
+            usernameBucket.release(now);
+            ipFailureBucket.release(now);
+            ipRateLimited.increment();
+            throw throttled(ipBucket, now);
+        }
+    }
+
+    @Override
+    public void loginSucceeded(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        releaseFailureToken(ipFailures, clientIp, now);
+        TokenBucket usernameBucket = usernameFailures.buckets.asMap().remove(username);
+        if (usernameBucket == null) {
+            return;
+        }
+        usernameBucket.release(now);
+        // a bucket that is still short of tokens holds failures, from here or shared by other replicas, so those reset too
+        if (shareFailures && !usernameBucket.isFull(now)) {
+            pending.reset(username, maxKeys);
+        }
+    }
+
+    @Override
+    public void loginAborted(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        releaseFailureToken(usernameFailures, username, now);
+        releaseFailureToken(ipFailures, clientIp, now);
+    }
+
+    @Override
+    public void loginFailed(String username, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        // the failure was already counted locally by the token checkAllowed took
+        if (shareFailures) {
+            pending.add(pending.usernames, username, maxKeys);
+            pending.add(pending.clientIps, clientIp, maxKeys);
+        }
+    }
+
+    @Override
+    public void onLoginFailures(LoginFailuresEvent event) {
+        if (!enabled || instanceId.equals(event.getInstanceId())) {
+            return;
+        }
+        long now = System.nanoTime();
+        // resets go first, failures in the same batch happened after the successful login on the other replica
+        if (event.getSucceededUsernames() != null) {
+            usernameFailures.buckets.invalidateAll(event.getSucceededUsernames());
+        }
+        event.getUsernames().forEach((username, failures) -> usernameFailures.bucket(username, now).consume(now, failures));
+        event.getClientIps().forEach((clientIp, failures) -> ipFailures.bucket(clientIp, now).consume(now, failures));
+    }
+
+    // replicas exchange failure counts in batches rather than one message or write per failed attempt
+    @Scheduled(fixedDelayString = "${security.login.throttle.share-interval:5000}")
+    public void shareFailures() {
+        if (!enabled || !shareFailures) {
+            return;
+        }
+        Set<String> succeededUsernames = pending.drainResets();
+        Map<String, Integer> usernames = pending.drain(pending.usernames);
+        Map<String, Integer> clientIps = pending.drain(pending.clientIps);
+        if (succeededUsernames.isEmpty() && usernames.isEmpty() && clientIps.isEmpty()) {
+            return;
+        }
+        try {
+            loginFailureSender.sendLoginFailures(LoginFailuresEvent.builder()
+                    .instanceId(instanceId)
+                    .usernames(usernames)
+                    .clientIps(clientIps)
+                    .succeededUsernames(succeededUsernames)
+                    .build());
+        } catch (Exception e) {
+            log.warn("could not share login failures: {}", e.getMessage());
+        }
+    }
+
+    private static void releaseFailureToken(Limit limit, String key, long now) {
+        TokenBucket bucket = limit.buckets.getIfPresent(key);
+        if (bucket != null) {
+            bucket.release(now);
+        }
+    }
+
+    private static LoginThrottledException throttled(TokenBucket bucket, long now) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(bucket.nanosUntilAvailable(now)) + 1);
+        return new LoginThrottledException("Too many login attempts", retryAfterSeconds);
+    }
+
+    private static class Limit {
+
+        private final int capacity;
+
+        private final long refillNanos;
+
+        private final Cache<String, TokenBucket> buckets;
+
+        Limit(int capacity, long refillNanos, int maxKeys) {
+            this.capacity = capacity;
+            this.refillNanos = refillNanos;
+            // an idle bucket has refilled completely and can be forgotten
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(capacity * refillNanos, TimeUnit.NANOSECONDS)
+                    .build();
+        }
+
+        TokenBucket bucket(String key, long now) {
+            TokenBucket bucket = buckets.getIfPresent(key);
+            return bucket != null ? bucket : buckets.get(key, k -> new TokenBucket(capacity, refillNanos, now));
+        }
+    }
+
+    // counts are merged and removed per key under the map's bin lock, so a failure recorded
+    // while the batch is drained lands either in this batch or in the next one, never in neither
+    private static class PendingFailures {
+
+        private final ConcurrentHashMap<String, Integer> usernames = new ConcurrentHashMap<>();
+
+        private final ConcurrentHashMap<String, Integer> clientIps = new ConcurrentHashMap<>();
+
+        private final Set<String> succeededUsernames = ConcurrentHashMap.newKeySet();
+
+        void add(ConcurrentHashMap<String, Integer> failures, String key, int maxKeys) {
+            // the local buckets still count everything, only sharing is capped
+            if (failures.size() >= maxKeys && !failures.containsKey(key)) {
+                return;
+            }
+            failures.merge(key, 1, Integer::sum);
+        }
+
+        void reset(String username, int maxKeys) {
+            // failures before the successful login must not be shared after the reset
+            usernames.remove(username);
+            if (succeededUsernames.size() < maxKeys) {
+                succeededUsernames.add(username);
+            }
+        }
+
+        Map<String, Integer> drain(ConcurrentHashMap<String, Integer> failures) {
+            Map<String, Integer> drained = new HashMap<>(failures.size() * 2);
+            for (String key : failures.keySet()) {
+                Integer count = failures.remove(key);
+                if (count != null) {
+                    drained.put(key, count);
+                }
+            }
+            return drained;
+        }
+
+        Set<String> drainResets() {
+            Set<String> drained = new HashSet<>();
+            for (String username : succeededUsernames) {
+                if (succeededUsernames.remove(username)) {
+                    drained.add(username);
+                }
+            }
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.instagram.auth.service.impl;
+
+import com.instagram.auth.entity.InstagramUserDetails;
+import com.instagram.auth.repository.ReactiveUserRepository;
+import com.instagram.auth.service.UserPrincipalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveInstagramUserDetailsService implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+    private final UserPrincipalCache userPrincipalCache;
+
+    private final ReactiveUserRepository reactiveUserRepository;
+
+    public ReactiveInstagramUserDetailsService(UserPrincipalCache userPrincipalCache, ReactiveUserRepository reactiveUserRepository) {
+        this.userPrincipalCache = userPrincipalCache;
+        this.reactiveUserRepository = reactiveUserRepository;
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return Mono.defer(() -> Mono.fromFuture(userPrincipalCache.findByUsernameAsync(username, this::load)))
+                .<UserDetails>flatMap(Mono::justOrEmpty);
+    }
+
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails user, String newPassword) {
+        if (!(user instanceof InstagramUserDetails)) {
+            return Mono.just(user);
+        }
+        log.info("upgrading password hash for user {}", user.getUsername());
+        InstagramUserDetails userDetails = (InstagramUserDetails) user;
+        return reactiveUserRepository.updatePassword(userDetails.getId(), userDetails.getPassword(), newPassword)
+                .then(Mono.fromSupplier(() -> {
+                    userPrincipalCache.invalidate(user.getUsername());
+                    InstagramUserDetails upgraded = new InstagramUserDetails(userDetails);
+                    upgraded.setPassword(newPassword);
+                    return (UserDetails) upgraded;
+                }));
+    }
+
+    private CompletableFuture<Optional<InstagramUserDetails>> load(String username) {
+        return reactiveUserRepository.findByUsername(username)
+                .map(user -> Optional.of(new InstagramUserDetails(user)))
+                .defaultIfEmpty(Optional.empty())
+                .toFuture();
+    }
+}
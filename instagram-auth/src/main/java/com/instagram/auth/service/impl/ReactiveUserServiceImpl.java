@@ -0,0 +1,219 @@
+package com.instagram.auth.service.impl;
+
+import com.instagram.auth.domain.AvailabilityResponse;
+import com.instagram.auth.domain.ProfileUpdateRequest;
+import com.instagram.auth.domain.UserPage;
+import com.instagram.auth.domain.UserSummary;
+import com.instagram.auth.entity.Role;
+import com.instagram.auth.entity.User;
+import com.instagram.auth.exception.BadRequestException;
+import com.instagram.auth.exception.EmailAlreadyExistsException;
+import com.instagram.auth.exception.ResourceNotFoundException;
+import com.instagram.auth.exception.UsernameAlreadyExistsException;
+import com.instagram.auth.message.UserEventSender;
+import com.instagram.auth.repository.ReactiveUserRepository;
+import com.instagram.auth.service.ReactiveUserService;
+import com.instagram.auth.service.UserAvailabilityService;
+import com.instagram.auth.service.UserPrincipalCache;
+import com.instagram.auth.util.SearchKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.*;
+
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final UserEventSender userEventSender;
+    private final UserPrincipalCache userPrincipalCache;
+    private final UserAvailabilityService userAvailabilityService;
+
+    @Value("${user.summary.max-batch-size:1000}")
+    private int maxSummaryBatchSize;
+
+    @Value("${user.summary.chunk-size:200}")
+    private int summaryChunkSize;
+
+    @Value("${user.summary.parallelism:4}")
+    private int summaryParallelism;
+
+    @Value("${user.search.max-limit:50}")
+    private int maxSearchLimit;
+
+    @Value("${user.pagination.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${user.stream.batch-size:500}")
+    private int streamBatchSize;
+
+    public ReactiveUserServiceImpl(PasswordEncoder passwordEncoder, ReactiveUserRepository reactiveUserRepository,
+                                   UserEventSender userEventSender, UserPrincipalCache userPrincipalCache,
+                                   UserAvailabilityService userAvailabilityService) {
+        this.passwordEncoder = passwordEncoder;
+        this.reactiveUserRepository = reactiveUserRepository;
+        this.userEventSender = userEventSender;
+        this.userPrincipalCache = userPrincipalCache;
+        this.userAvailabilityService = userAvailabilityService;
+    }
+
+    @Override
+    public Mono<UserPage> findAll(String afterId, int size) {
+        if (size < 1) {
+            return Mono.error(new BadRequestException("Page size must be positive"));
+        }
+        if (afterId != null && !ObjectId.isValid(afterId)) {
+            return Mono.error(new BadRequestException(String.format("Invalid cursor %s", afterId)));
+        }
+        log.info("retrieving users after {}", afterId);
+        int pageSize = Math.min(size, maxPageSize);
+        return reactiveUserRepository.findPageAfter(afterId, pageSize)
+                .collectList()
+                .map(users -> UserServiceImpl.page(users, pageSize));
+    }
+
+    @Override
+    public Flux<User> streamAll() {
+        log.info("streaming all users");
+        return reactiveUserRepository.streamAll(streamBatchSize);
+    }
+
+    @Override
+    public Mono<User> findByUsername(String username) {
+        log.info("retrieving user {}", username);
+        return reactiveUserRepository.findByUsername(username);
+    }
+
+    @Override
+    public Flux<UserSummary> findSummariesByUsernameIn(List<String> usernames) {
+        Set<String> uniqueUsernames = new LinkedHashSet<>(usernames);
+        uniqueUsernames.remove(null);
+        if (uniqueUsernames.size() > maxSummaryBatchSize) {
+            return Flux.error(new BadRequestException(String.format("At most %d usernames can be requested at once", maxSummaryBatchSize)));
+        }
+
+        List<String> pending = new ArrayList<>(uniqueUsernames);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += summaryChunkSize) {
+            chunks.add(pending.subList(from, Math.min(from + summaryChunkSize, pending.size())));
+        }
+
+        return Flux.fromIterable(chunks)
+                .flatMap(reactiveUserRepository::findSummariesByUsernameIn, summaryParallelism)
+                .collectMap(UserSummary::getUsername)
+                .flatMapIterable(found -> {
+                    List<UserSummary> summaries = new ArrayList<>(pending.size());
+                    for (String username : pending) {
+                        UserSummary summary = found.get(username);
+                        summaries.add(summary != null
+                                ? summary
+                                : UserSummary.builder().username(username).missing(true).build());
+                    }
+                    return summaries;
+                });
+    }
+
+    @Override
+    public Flux<UserSummary> search(String query, int limit) {
+        String prefix = SearchKeys.normalize(query);
+        if (prefix == null || prefix.isEmpty()) {
+            return Flux.error(new BadRequestException("A search prefix is required"));
+        }
+        if (limit < 1) {
+            return Flux.error(new BadRequestException("Limit must be positive"));
+        }
+        int size = Math.min(limit, maxSearchLimit);
+        // username matches rank before display name matches, which are only queried when the first ones run short
+        return reactiveUserRepository.findSummariesByUsernamePrefix(prefix, size)
+                .concatWith(Flux.defer(() -> reactiveUserRepository.findSummariesByDisplayNamePrefix(prefix, size)))
+                .distinct(UserSummary::getId)
+                .take(size);
+    }
+
+    @Override
+    public Mono<AvailabilityResponse> checkAvailability(String username, String email) {
+        if (username == null && email == null) {
+            return Mono.error(new BadRequestException("A username or an email is required"));
+        }
+        Mono<Boolean> usernameAvailable = username != null
+                ? taken(userAvailabilityService.mightHaveUsername(username), reactiveUserRepository.existsByUsername(username)).map(taken -> !taken)
+                : Mono.just(false);
+        Mono<Boolean> emailAvailable = email != null
+                ? taken(userAvailabilityService.mightHaveEmail(email), reactiveUserRepository.existsByEmail(email)).map(taken -> !taken)
+                : Mono.just(false);
+        return Mono.zip(usernameAvailable, emailAvailable, (usernameFree, emailFree) -> AvailabilityResponse.builder()
+                .usernameAvailable(username != null ? usernameFree : null)
+                .emailAvailable(email != null ? emailFree : null)
+                .build());
+    }
+
+    // only probable hits of the bloom filter are looked up
+    private static Mono<Boolean> taken(boolean mightExist, Mono<Boolean> exists) {
+        return mightExist ? exists : Mono.just(false);
+    }
+
+    @Override
+    public Mono<User> registerUser(User user) {
+        log.info("registering user {}", user.getUsername());
+        Mono<Void> rejectTaken = taken(userAvailabilityService.mightHaveUsername(user.getUsername()), reactiveUserRepository.existsByUsername(user.getUsername()))
+                .flatMap(usernameTaken -> usernameTaken
+                        ? Mono.<Boolean>error(new UsernameAlreadyExistsException(String.format("Username %s already exists", user.getUsername())))
+                        : taken(userAvailabilityService.mightHaveEmail(user.getEmail()), reactiveUserRepository.existsByEmail(user.getEmail())))
+                .flatMap(emailTaken -> emailTaken
+                        ? Mono.<Void>error(new EmailAlreadyExistsException(String.format("Email %s already exists", user.getEmail())))
+                        : Mono.<Void>empty());
+        // BCrypt is CPU bound and the bounded encoder may wait for a slot, so keep it off the event loop
+        return rejectTaken.then(Mono.fromCallable(() -> passwordEncoder.encode(user.getPassword()))
+                .subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(encodedPassword -> {
+                    user.setActive(true);
+                    user.setPassword(encodedPassword);
+                    user.setRoles(new HashSet<>(Collections.singleton(Role.USER)));
+                    return reactiveUserRepository.insert(user);
+                })
+                .onErrorMap(DuplicateKeyException.class, e -> UserServiceImpl.toAlreadyExistsException(user, e))
+                .flatMap(savedUser -> {
+                    userPrincipalCache.invalidate(savedUser.getUsername());
+                    userAvailabilityService.add(savedUser.getUsername(), savedUser.getEmail());
+                    return Mono.fromRunnable(() -> userEventSender.sendUserCreated(savedUser))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .thenReturn(savedUser);
+                });
+    }
+
+    @Override
+    public Mono<User> updateProfile(String id, ProfileUpdateRequest request) {
+        if (!request.hasChanges()) {
+            return Mono.error(new BadRequestException("No profile fields to update"));
+        }
+        log.info("update profile of user {}", id);
+        return reactiveUserRepository.updateProfile(id, request)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(UserServiceImpl.userNotFound(id))))
+                .flatMap(previous -> {
+                    User updated = UserServiceImpl.applyProfileUpdate(previous, request);
+                    userPrincipalCache.invalidate(updated.getUsername());
+                    return Mono.fromRunnable(() -> userEventSender.sendUserUpdated(updated, UserServiceImpl.profilePictureUrl(previous)))
+                            .subscribeOn(Schedulers.boundedElastic())
+                            .thenReturn(updated);
+                });
+    }
+
+    @Override
+    public Mono<User> updateProfilePicture(String uri, String id) {
+        log.info("update profile picture {} for user {}", uri, id);
+        ProfileUpdateRequest request = new ProfileUpdateRequest();
+        request.setProfilePictureUrl(uri);
+        return updateProfile(id, request);
+    }
+}
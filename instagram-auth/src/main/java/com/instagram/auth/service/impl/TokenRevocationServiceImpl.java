@@ -0,0 +1,139 @@
+package com.instagram.auth.service.impl;
+
+import com.instagram.auth.domain.TokenRevokedEvent;
+import com.instagram.auth.entity.RevokedToken;
+import com.instagram.auth.exception.BadRequestException;
+import com.instagram.auth.message.TokenRevocationSender;
+import com.instagram.auth.repository.RevokedTokenRepository;
+import com.instagram.auth.service.TokenRevocationService;
+import com.instagram.auth.util.BloomFilter;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+@Slf4j
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final TokenRevocationSender tokenRevocationSender;
+
+    private final long expectedRevocations;
+
+    private final double falsePositiveProbability;
+
+    private volatile RevocationSet revocations;
+
+    public TokenRevocationServiceImpl(RevokedTokenRepository revokedTokenRepository,
+                                      TokenRevocationSender tokenRevocationSender,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${security.jwt.revocation.expected-revocations:100000}") long expectedRevocations,
+                                      @Value("${security.jwt.revocation.false-positive-probability:0.001}") double falsePositiveProbability) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.tokenRevocationSender = tokenRevocationSender;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.revocations = newRevocationSet(new HashMap<>());
+        Gauge.builder("jwt.revoked-tokens", this, service -> service.revocations.expiries.size())
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void load() {
+        rebuild();
+    }
+
+    // replicas that missed an event converge here, and expired ids stop taking space in the filter
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.rebuild-interval:300000}",
+            initialDelayString = "${security.jwt.revocation.rebuild-interval:300000}")
+    public void rebuild() {
+        Map<String, Long> expiries = new HashMap<>();
+        try (Stream<RevokedToken> revokedTokens = revokedTokenRepository.findByExpiresAtAfter(Instant.now())) {
+            revokedTokens.forEach(revokedToken -> expiries.put(revokedToken.getId(), revokedToken.getExpiresAt().toEpochMilli()));
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            revocations.expiries.forEach((jti, expiresAt) -> {
+                if (expiresAt > now) {
+                    expiries.putIfAbsent(jti, expiresAt);
+                }
+            });
+            revocations = newRevocationSet(expiries);
+        }
+        log.info("loaded {} revoked tokens", expiries.size());
+    }
+
+    @Override
+    public void revoke(Claims claims) {
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            throw new BadRequestException("Token has no id and cannot be revoked");
+        }
+        log.info("revoking token {} of user {}", claims.getId(), claims.getSubject());
+        Instant expiresAt = claims.getExpiration().toInstant();
+        revokedTokenRepository.save(RevokedToken.builder()
+                .id(claims.getId())
+                .subject(claims.getSubject())
+                .revokedAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build());
+        add(claims.getId(), expiresAt.toEpochMilli());
+        tokenRevocationSender.sendTokenRevoked(TokenRevokedEvent.builder()
+                .jti(claims.getId())
+                .subject(claims.getSubject())
+                .expiresAt(expiresAt.toEpochMilli())
+                .build());
+    }
+
+    @Override
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        RevocationSet current = revocations;
+        return current.filter.mightContain(jti) && current.expiries.containsKey(jti);
+    }
+
+    @Override
+    public void onRevoked(TokenRevokedEvent event) {
+        if (event.getExpiresAt() > System.currentTimeMillis()) {
+            add(event.getJti(), event.getExpiresAt());
+        }
+    }
+
+    private synchronized void add(String jti, long expiresAt) {
+        RevocationSet current = revocations;
+        // the exact set first, so a reader that sees the filter bit also finds the id
+        current.expiries.put(jti, expiresAt);
+        current.filter.put(jti);
+    }
+
+    private RevocationSet newRevocationSet(Map<String, Long> expiries) {
+        BloomFilter filter = new BloomFilter(Math.max(expectedRevocations, expiries.size() * 2L), falsePositiveProbability);
+        expiries.keySet().forEach(filter::put);
+        return new RevocationSet(filter, new ConcurrentHashMap<>(expiries));
+    }
+
+    private static class RevocationSet {
+
+        private final BloomFilter filter;
+
+        private final Map<String, Long> expiries;
+
+        RevocationSet(BloomFilter filter, Map<String, Long> expiries) {
+            this.filter = filter;
+            this.expiries = expiries;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.instagram.auth.service.impl;
+
+import com.instagram.auth.repository.UserRepository;
+import com.instagram.auth.service.UserAvailabilityService;
+import com.instagram.auth.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class UserAvailabilityServiceImpl implements UserAvailabilityService {
+
+    private final UserRepository userRepository;
+
+    private final boolean enabled;
+
+    private final long expectedUsers;
+
+    private final double falsePositiveProbability;
+
+    private final int batchSize;
+
+    private final long rebuildIntervalMillis;
+
+    private ScheduledExecutorService rebuilder;
+
+    private final Counter usernameMisses;
+
+    private final Counter usernameHits;
+
+    private final Counter usernameFalsePositives;
+
+    private final Counter emailMisses;
+
+    private final Counter emailHits;
+
+    private final Counter emailFalsePositives;
+
+    // null until the first load finished, every lookup goes to Mongo until then
+    private volatile Filters filters;
+
+    private volatile Filters building;
+
+    public UserAvailabilityServiceImpl(UserRepository userRepository,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${user.availability.enabled:true}") boolean enabled,
+                                       @Value("${user.availability.expected-users:1000000}") long expectedUsers,
+                                       @Value("${user.availability.false-positive-probability:0.01}") double falsePositiveProbability,
+                                       @Value("${user.stream.batch-size:500}") int batchSize,
+                                       @Value("${user.availability.rebuild-interval:3600000}") long rebuildIntervalMillis) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.expectedUsers = expectedUsers;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.batchSize = batchSize;
+        this.rebuildIntervalMillis = rebuildIntervalMillis;
+        this.usernameMisses = checks(meterRegistry, "username", "miss");
+        this.usernameHits = checks(meterRegistry, "username", "hit");
+        this.usernameFalsePositives = checks(meterRegistry, "username", "false-positive");
+        this.emailMisses = checks(meterRegistry, "email", "miss");
+        this.emailHits = checks(meterRegistry, "email", "hit");
+        this.emailFalsePositives = checks(meterRegistry, "email", "false-positive");
+        Gauge.builder("user.availability.filter.bytes", this, service -> service.filters != null ? service.filters.bytes() : 0)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("user.availability.filter.entries", this, service -> service.filters != null ? service.filters.entries.get() : 0)
+                .register(meterRegistry);
+        Gauge.builder("user.availability.filter.expected-false-positive-rate", this,
+                service -> service.filters != null ? service.filters.expectedFalsePositiveProbability() : 1)
+                .register(meterRegistry);
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String field, String result) {
+        return Counter.builder("user.availability.checks")
+                .tag("field", field)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // loaded in the background so a large collection does not hold up startup, and rebuilt on a thread of its own
+    // because a full scan on the shared scheduler would stall the outbox relay and the other short periodic jobs
+    @PostConstruct
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("user-availability-rebuild-");
+        threadFactory.setDaemon(true);
+        rebuilder = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        rebuilder.scheduleWithFixedDelay(this::rebuild, 0, rebuildIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    // resized as the user base grows, so the false positive rate stays near the configured one
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Filters current = filters;
+        Filters next = new Filters(Math.max(expectedUsers, current != null ? current.entries.get() * 2 : 0), falsePositiveProbability);
+        // registrations during the scan go into both sets of filters
+        building = next;
+        try {
+            userRepository.streamUsernamesAndEmails(batchSize, next::add);
+        } catch (RuntimeException e) {
+            building = null;
+            log.warn("could not load usernames and emails: {}", e.getMessage());
+            return;
+        }
+        // published before building is cleared, see add()
+        filters = next;
+        building = null;
+        log.info("loaded {} usernames and emails into {} KiB of bloom filters in {} ms, expected false positive rate {}",
+                next.entries.get(), next.bytes() / 1024, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                String.format("%.5f", next.expectedFalsePositiveProbability()));
+    }
+
+    @Override
+    public boolean mightHaveUsername(String username) {
+        Filters current = filters;
+        if (current == null) {
+            return true;
+        }
+        boolean hit = current.usernames.mightContain(username);
+        (hit ? usernameHits : usernameMisses).increment();
+        return hit;
+    }
+
+    @Override
+    public boolean mightHaveEmail(String email) {
+        Filters current = filters;
+        if (current == null) {
+            return true;
+        }
+        boolean hit = current.emails.mightContain(email);
+        (hit ? emailHits : emailMisses).increment();
+        return hit;
+    }
+
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        if (!mightHaveUsername(username)) {
+            return true;
+        }
+        boolean exists = userRepository.existsByUsername(username);
+        if (!exists && filters != null) {
+            usernameFalsePositives.increment();
+        }
+        return !exists;
+    }
+
+    @Override
+    public boolean isEmailAvailable(String email) {
+        if (!mightHaveEmail(email)) {
+            return true;
+        }
+        boolean exists = userRepository.existsByEmail(email);
+        if (!exists && filters != null) {
+            emailFalsePositives.increment();
+        }
+        return !exists;
+    }
+
+    @Override
+    // building is read before filters: if it is already cleared, the rebuilt filters have been published
+    public void add(String username, String email) {
+        Filters next = building;
+        Filters current = filters;
+        if (next != null && next != current) {
+            next.add(username, email);
+        }
+        if (current != null) {
+            current.add(username, email);
+        }
+    }
+
+    private static class Filters {
+
+        private final BloomFilter usernames;
+
+        private final BloomFilter emails;
+
+        private final AtomicLong entries = new AtomicLong();
+
+        Filters(long expectedUsers, double falsePositiveProbability) {
+            this.usernames = new BloomFilter(expectedUsers, falsePositiveProbability);
+            this.emails = new BloomFilter(expectedUsers, falsePositiveProbability);
+        }
+
+        void add(String username, String email) {
+            if (username != null) {
+                usernames.put(username);
+            }
+            if (email != null) {
+                emails.put(email);
+            }
+            entries.incrementAndGet();
+        }
+
+        long bytes() {
+            return (usernames.bitSize() + emails.bitSize()) / 8;
+        }
+
+        double expectedFalsePositiveProbability() {
+            return usernames.expectedFalsePositiveProbability(entries.get());
+        }
+    }
+}
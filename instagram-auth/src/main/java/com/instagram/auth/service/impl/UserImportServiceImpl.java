@@ -0,0 +1,332 @@
+package com.instagram.auth.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.instagram.auth.domain.ImportFailure;
+import com.instagram.auth.domain.ImportResponse;
+import com.instagram.auth.domain.SignUpRequest;
+import com.instagram.auth.entity.Profile;
+import com.instagram.auth.entity.Role;
+import com.instagram.auth.entity.User;
+import com.instagram.auth.message.UserEventSender;
+import com.instagram.auth.repository.UserRepository;
+import com.instagram.auth.service.UserAvailabilityService;
+import com.instagram.auth.service.UserImportService;
+import com.instagram.auth.service.UserPrincipalCache;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class UserImportServiceImpl implements UserImportService, DisposableBean {
+
+    private final PasswordEncoder passwordEncoder;
+    private final UserRepository userRepository;
+    private final UserEventSender userEventSender;
+    private final UserPrincipalCache userPrincipalCache;
+    private final UserAvailabilityService userAvailabilityService;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader recordReader;
+    private final ForkJoinPool hashingPool;
+    private final int batchSize;
+    private final int maxReportedFailures;
+    private final Timer batchTimer;
+    private final Counter imported;
+    private final Counter failed;
+
+    public UserImportServiceImpl(@Qualifier("rawPasswordEncoder") PasswordEncoder passwordEncoder,
+                                 UserRepository userRepository,
+                                 UserEventSender userEventSender,
+                                 UserPrincipalCache userPrincipalCache,
+                                 UserAvailabilityService userAvailabilityService,
+                                 Validator validator,
+                                 ObjectProvider<TransactionTemplate> transactionTemplate,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${user.import.hashing-threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int hashingThreads,
+                                 @Value("${user.import.batch-size:1000}") int batchSize,
+                                 @Value("${user.import.max-reported-failures:1000}") int maxReportedFailures) {
+        this.passwordEncoder = passwordEncoder;
+        this.userRepository = userRepository;
+        this.userEventSender = userEventSender;
+        this.userPrincipalCache = userPrincipalCache;
+        this.userAvailabilityService = userAvailabilityService;
+        this.validator = validator;
+        // only present with the outbox, whose transaction manager is the only one in the context
+        this.transactionTemplate = transactionTemplate.getIfAvailable();
+        this.recordReader = objectMapper.readerFor(SignUpRequest.class);
+        // separate from the sign-in hashing pool so an import cannot starve logins, and from the common pool
+        this.hashingPool = new ForkJoinPool(hashingThreads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("user-import-hashing-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.batchSize = batchSize;
+        this.maxReportedFailures = maxReportedFailures;
+        this.batchTimer = Timer.builder("user.import.batch")
+                .description("Time to validate, hash, insert and publish one batch of imported users")
+                .register(meterRegistry);
+        this.imported = Counter.builder("user.import.records")
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        this.failed = Counter.builder("user.import.records")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    // records are numbered by line, so failures can be matched against the source file
+    @Override
+    public ImportResponse importUsers(InputStream ndjson) throws IOException {
+        ImportResponse response = new ImportResponse();
+        List<ImportRecord> batch = new ArrayList<>(batchSize);
+        long line = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String json;
+            while ((json = reader.readLine()) != null) {
+                line++;
+                if (json.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    batch.add(new ImportRecord(line, recordReader.readValue(json)));
+                } catch (JsonProcessingException e) {
+                    fail(response, line, null, "Malformed record: " + e.getOriginalMessage());
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    importBatch(batch, response);
+                    batch.clear();
+                }
+            }
+        }
+        importBatch(batch, response);
+        log.info("imported {} users, {} records failed", response.getImported(), response.getFailed());
+        return response;
+    }
+
+    @Override
+    public ImportResponse importUsers(List<SignUpRequest> records, long firstRecord) {
+        ImportResponse response = new ImportResponse();
+        List<ImportRecord> batch = new ArrayList<>(Math.min(records.size(), batchSize));
+        long number = firstRecord;
+        for (SignUpRequest record : records) {
+            batch.add(new ImportRecord(number++, record));
+            if (batch.size() == batchSize) {
+                importBatch(batch, response);
+                batch.clear();
+            }
+        }
+        importBatch(batch, response);
+        return response;
+    }
+
+    @Override
+    public ImportResponse merge(ImportResponse left, ImportResponse right) {
+        left.setImported(left.getImported() + right.getImported());
+        left.setFailed(left.getFailed() + right.getFailed());
+        for (ImportFailure failure : right.getFailures()) {
+            if (left.getFailures().size() >= maxReportedFailures) {
+                break;
+            }
+            left.getFailures().add(failure);
+        }
+        return left;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public void destroy() {
+        hashingPool.shutdown();
+    }
+
+    private void importBatch(List<ImportRecord> records, ImportResponse response) {
+        if (records.isEmpty()) {
+            return;
+        }
+        batchTimer.record(() -> {
+            List<ImportRecord> accepted = new ArrayList<>(records.size());
+            for (ImportRecord record : records) {
+                String reason = rejectionReason(record.request);
+                if (reason != null) {
+                    fail(response, record.number, record.request.getUsername(), reason);
+                } else {
+                    accepted.add(record);
+                }
+            }
+
+            List<User> users = accepted.stream()
+                    .map(record -> toUser(record.request))
+                    .collect(Collectors.toList());
+            // bcrypt dominates the cost of an import, so this is the part spread over the cores
+            hashingPool.submit(() -> users.parallelStream()
+                    .forEach(user -> user.setPassword(passwordEncoder.encode(user.getPassword()))))
+                    .join();
+
+            List<User> inserted = transactionTemplate != null
+                    ? insertInTransaction(users, accepted, response)
+                    : insert(users, accepted, response);
+            for (User user : inserted) {
+                userPrincipalCache.invalidate(user.getUsername());
+                userAvailabilityService.add(user.getUsername(), user.getEmail());
+            }
+            response.setImported(response.getImported() + inserted.size());
+            imported.increment(inserted.size());
+        });
+    }
+
+    private List<User> insert(List<User> users, List<ImportRecord> records, ImportResponse response) {
+        Set<Integer> failedIndexes = reportFailures(users, records, userRepository.insertUnordered(users), response);
+        List<User> inserted = without(users, failedIndexes);
+        if (!inserted.isEmpty()) {
+            userEventSender.sendUsersCreated(inserted);
+        }
+        return inserted;
+    }
+
+    // the outbox entries commit together with the users; a write error aborts a Mongo transaction,
+    // so the failed records are taken out and the rest of the batch is retried
+    private List<User> insertInTransaction(List<User> users, List<ImportRecord> records, ImportResponse response) {
+        List<User> pending = users;
+        List<ImportRecord> pendingRecords = records;
+        while (!pending.isEmpty()) {
+            List<User> attempt = pending;
+            List<BulkWriteError> errors = transactionTemplate.execute(status -> {
+                List<BulkWriteError> attemptErrors = userRepository.insertUnordered(attempt);
+                if (attemptErrors.isEmpty()) {
+                    userEventSender.sendUsersCreated(attempt);
+                } else {
+                    status.setRollbackOnly();
+                }
+                return attemptErrors;
+            });
+            if (errors == null || errors.isEmpty()) {
+                return pending;
+            }
+            Set<Integer> failedIndexes = reportFailures(pending, pendingRecords, errors, response);
+            pending = without(pending, failedIndexes);
+            pendingRecords = without(pendingRecords, failedIndexes);
+        }
+        return pending;
+    }
+
+    private Set<Integer> reportFailures(List<User> users, List<ImportRecord> records, List<BulkWriteError> errors,
+                                        ImportResponse response) {
+        Set<Integer> failedIndexes = new HashSet<>();
+        for (BulkWriteError error : errors) {
+            User user = users.get(error.getIndex());
+            failedIndexes.add(error.getIndex());
+            fail(response, records.get(error.getIndex()).number, user.getUsername(), failureReason(user, error));
+        }
+        return failedIndexes;
+    }
+
+    private static <T> List<T> without(List<T> list, Set<Integer> indexes) {
+        if (indexes.isEmpty()) {
+            return list;
+        }
+        List<T> remaining = new ArrayList<>(list.size() - indexes.size());
+        for (int i = 0; i < list.size(); i++) {
+            if (!indexes.contains(i)) {
+                remaining.add(list.get(i));
+            }
+        }
+        return remaining;
+    }
+
+    // the same checks POST /create applies, run before the hash is paid for; the unique indexes still decide races
+    private String rejectionReason(SignUpRequest request) {
+        Set<ConstraintViolation<SignUpRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (!userAvailabilityService.isUsernameAvailable(request.getUsername())) {
+            return String.format("Username %s already exists", request.getUsername());
+        }
+        if (!userAvailabilityService.isEmailAvailable(request.getEmail())) {
+            return String.format("Email %s already exists", request.getEmail());
+        }
+        return null;
+    }
+
+    // ids and audit dates are set here because bulk inserts neither report generated ids nor count as new entities
+    private static User toUser(SignUpRequest request) {
+        Instant now = Instant.now();
+        return User.builder()
+                .id(new ObjectId().toHexString())
+                .username(request.getUsername())
+                .email(request.getEmail())
+                .password(request.getPassword())
+                .createdAt(now)
+                .updatedAt(now)
+                .active(true)
+                .roles(Collections.singleton(Role.USER))
+                .userProfile(Profile.builder()
+                        .displayName(request.getName())
+                        .build())
+                .build();
+    }
+
+    private static String failureReason(User user, BulkWriteError error) {
+        if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+            if (error.getMessage().contains(User.EMAIL_INDEX)) {
+                return String.format("Email %s already exists", user.getEmail());
+            }
+            if (error.getMessage().contains(User.USERNAME_INDEX)) {
+                return String.format("Username %s already exists", user.getUsername());
+            }
+        }
+        return error.getMessage();
+    }
+
+    private void fail(ImportResponse response, long record, String username, String reason) {
+        response.setFailed(response.getFailed() + 1);
+        if (response.getFailures().size() < maxReportedFailures) {
+            response.getFailures().add(new ImportFailure(record, username, reason));
+        }
+        failed.increment();
+    }
+
+    private static class ImportRecord {
+        private final long number;
+        private final SignUpRequest request;
+
+        private ImportRecord(long number, SignUpRequest request) {
+            this.number = number;
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.instagram.auth.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.instagram.auth.entity.InstagramUserDetails;
+import com.instagram.auth.repository.UserRepository;
+import com.instagram.auth.service.UserPrincipalCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Slf4j
+@Service
+public class UserPrincipalCacheImpl implements UserPrincipalCache {
+
+    private final UserRepository userRepository;
+
+    private final boolean enabled;
+
+    private final Cache<String, Optional<InstagramUserDetails>> cache;
+
+    private final ConcurrentMap<String, CompletableFuture<Optional<InstagramUserDetails>>> inFlight = new ConcurrentHashMap<>();
+
+    public UserPrincipalCacheImpl(UserRepository userRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.principal-cache.enabled:true}") boolean enabled,
+                                  @Value("${security.principal-cache.max-size:10000}") long maxSize,
+                                  @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                                  @Value("${security.principal-cache.negative-ttl-seconds:30}") long negativeTtlSeconds) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new PrincipalExpiry(TimeUnit.SECONDS.toNanos(ttlSeconds), TimeUnit.SECONDS.toNanos(negativeTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.principals");
+    }
+
+    @Override
+    public Optional<InstagramUserDetails> findByUsername(String username) {
+        if (!enabled) {
+            return load(username);
+        }
+        Optional<InstagramUserDetails> cached = cache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Optional<InstagramUserDetails>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<InstagramUserDetails>> existing = inFlight.putIfAbsent(username, future);
+        if (existing != null) {
+            return existing.join();
+        }
+        try {
+            Optional<InstagramUserDetails> loaded = load(username);
+            complete(username, future, loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            inFlight.remove(username, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<InstagramUserDetails>> findByUsernameAsync(
+            String username, Function<String, CompletionStage<Optional<InstagramUserDetails>>> loader) {
+        if (!enabled) {
+            return loader.apply(username).toCompletableFuture();
+        }
+        Optional<InstagramUserDetails> cached = cache.getIfPresent(username);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<Optional<InstagramUserDetails>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<InstagramUserDetails>> existing = inFlight.putIfAbsent(username, future);
+        if (existing != null) {
+            return existing;
+        }
+        loader.apply(username).whenComplete((loaded, e) -> {
+            if (e != null) {
+                inFlight.remove(username, future);
+                future.completeExceptionally(e);
+            } else {
+                complete(username, future, loaded);
+            }
+        });
+        return future;
+    }
+
+    private void complete(String username, CompletableFuture<Optional<InstagramUserDetails>> future,
+                          Optional<InstagramUserDetails> loaded) {
+        cache.put(username, loaded);
+        // an invalidation raced with this load, so the value just cached may already be stale
+        if (!inFlight.remove(username, future)) {
+            cache.invalidate(username);
+        }
+        future.complete(loaded);
+    }
+
+    @Override
+    public void invalidate(String username) {
+        log.debug("invalidating cached principal {}", username);
+        inFlight.remove(username);
+        cache.invalidate(username);
+    }
+
+    @Override
+    public void invalidateAll() {
+        inFlight.clear();
+        cache.invalidateAll();
+    }
+
+    private Optional<InstagramUserDetails> load(String username) {
+        return userRepository.findByUsername(username).map(InstagramUserDetails::new);
+    }
+
+    private static class PrincipalExpiry implements Expiry<String, Optional<InstagramUserDetails>> {
+
+        private final long ttlNanos;
+
+        private final long negativeTtlNanos;
+
+        PrincipalExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Optional<InstagramUserDetails> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<InstagramUserDetails> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<InstagramUserDetails> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
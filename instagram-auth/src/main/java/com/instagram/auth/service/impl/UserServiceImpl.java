@@ -1,20 +1,37 @@
 package com.instagram.auth.service.impl;
 
+import com.instagram.auth.domain.AvailabilityResponse;
+import com.instagram.auth.domain.ProfileUpdateRequest;
+import com.instagram.auth.domain.UserPage;
+import com.instagram.auth.domain.UserSummary;
+import com.instagram.auth.entity.Profile;
 import com.instagram.auth.entity.Role;
 import com.instagram.auth.entity.User;
+import com.instagram.auth.exception.BadRequestException;
 import com.instagram.auth.exception.EmailAlreadyExistsException;
 import com.instagram.auth.exception.ResourceNotFoundException;
 import com.instagram.auth.exception.UsernameAlreadyExistsException;
 import com.instagram.auth.message.UserEventSender;
 import com.instagram.auth.repository.UserRepository;
+import com.instagram.auth.service.UserAvailabilityService;
+import com.instagram.auth.service.UserPrincipalCache;
 import com.instagram.auth.service.UserService;
+import com.instagram.auth.util.SearchKeys;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -23,18 +40,63 @@ public class UserServiceImpl implements UserService {
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
     private final UserEventSender userEventSender;
+    private final UserPrincipalCache userPrincipalCache;
+    private final Executor summaryLookupExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final UserAvailabilityService userAvailabilityService;
+
+    @Value("${user.summary.max-batch-size:1000}")
+    private int maxSummaryBatchSize;
+
+    @Value("${user.summary.chunk-size:200}")
+    private int summaryChunkSize;
+
+    @Value("${user.search.max-limit:50}")
+    private int maxSearchLimit;
+
+    @Value("${user.pagination.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${user.stream.batch-size:500}")
+    private int streamBatchSize;
 
     public UserServiceImpl(PasswordEncoder passwordEncoder, UserRepository userRepository,
-                           UserEventSender userEventSender) {
+                           UserEventSender userEventSender, UserPrincipalCache userPrincipalCache,
+                           @Qualifier("summaryLookupExecutor") Executor summaryLookupExecutor,
+                           UserAvailabilityService userAvailabilityService,
+                           ObjectProvider<TransactionTemplate> transactionTemplate) {
         this.passwordEncoder = passwordEncoder;
         this.userEventSender = userEventSender;
         this.userRepository = userRepository;
+        this.userPrincipalCache = userPrincipalCache;
+        this.summaryLookupExecutor = summaryLookupExecutor;
+        this.userAvailabilityService = userAvailabilityService;
+        this.transactionTemplate = transactionTemplate.getIfAvailable();
     }
 
     @Override
-    public List<User> findAll() {
-        log.info("retrieving all users");
-        return userRepository.findAll();
+    public UserPage findAll(String afterId, int size) {
+        if (size < 1) {
+            throw new BadRequestException("Page size must be positive");
+        }
+        if (afterId != null && !ObjectId.isValid(afterId)) {
+            throw new BadRequestException(String.format("Invalid cursor %s", afterId));
+        }
+        log.info("retrieving users after {}", afterId);
+        int pageSize = Math.min(size, maxPageSize);
+        return page(userRepository.findPageAfter(afterId, pageSize), pageSize);
+    }
+
+    // a short page is the last one, so it gets no cursor and clients do not ask for an empty page after it
+    static UserPage page(List<User> users, int pageSize) {
+        String next = users.size() < pageSize ? null : users.get(users.size() - 1).getId();
+        return new UserPage(users, next);
+    }
+
+    @Override
+    public long streamAll(Consumer<User> consumer) {
+        log.info("streaming all users");
+        return userRepository.streamAll(streamBatchSize, consumer);
     }
 
     @Override
@@ -48,15 +110,80 @@ public class UserServiceImpl implements UserService {
         return userRepository.findByUsernameIn(usernames);
     }
 
+    @Override
+    public List<UserSummary> findSummariesByUsernameIn(List<String> usernames) {
+        Set<String> uniqueUsernames = new LinkedHashSet<>(usernames);
+        uniqueUsernames.remove(null);
+        if (uniqueUsernames.size() > maxSummaryBatchSize) {
+            throw new BadRequestException(String.format("At most %d usernames can be requested at once", maxSummaryBatchSize));
+        }
+
+        List<String> pending = new ArrayList<>(uniqueUsernames);
+        List<CompletableFuture<List<UserSummary>>> chunks = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += summaryChunkSize) {
+            List<String> chunk = pending.subList(from, Math.min(from + summaryChunkSize, pending.size()));
+            // the last chunk is queried on the request thread while the others run in parallel
+            chunks.add(from + summaryChunkSize >= pending.size()
+                    ? CompletableFuture.completedFuture(userRepository.findSummariesByUsernameIn(chunk))
+                    : CompletableFuture.supplyAsync(() -> userRepository.findSummariesByUsernameIn(chunk), summaryLookupExecutor));
+        }
+
+        Map<String, UserSummary> found = new HashMap<>();
+        chunks.forEach(chunk -> chunk.join().forEach(summary -> found.put(summary.getUsername(), summary)));
+
+        List<UserSummary> summaries = new ArrayList<>(pending.size());
+        for (String username : pending) {
+            UserSummary summary = found.get(username);
+            summaries.add(summary != null
+                    ? summary
+                    : UserSummary.builder().username(username).missing(true).build());
+        }
+        return summaries;
+    }
+
+    @Override
+    public List<UserSummary> search(String query, int limit) {
+        String prefix = SearchKeys.normalize(query);
+        if (prefix == null || prefix.isEmpty()) {
+            throw new BadRequestException("A search prefix is required");
+        }
+        if (limit < 1) {
+            throw new BadRequestException("Limit must be positive");
+        }
+        int size = Math.min(limit, maxSearchLimit);
+        // username matches rank before display name matches
+        Map<String, UserSummary> found = new LinkedHashMap<>();
+        userRepository.findSummariesByUsernamePrefix(prefix, size).forEach(summary -> found.put(summary.getId(), summary));
+        if (found.size() < size) {
+            for (UserSummary summary : userRepository.findSummariesByDisplayNamePrefix(prefix, size)) {
+                if (found.size() == size) {
+                    break;
+                }
+                found.putIfAbsent(summary.getId(), summary);
+            }
+        }
+        return new ArrayList<>(found.values());
+    }
+
+    @Override
+    public AvailabilityResponse checkAvailability(String username, String email) {
+        if (username == null && email == null) {
+            throw new BadRequestException("A username or an email is required");
+        }
+        return AvailabilityResponse.builder()
+                .usernameAvailable(username != null ? userAvailabilityService.isUsernameAvailable(username) : null)
+                .emailAvailable(email != null ? userAvailabilityService.isEmailAvailable(email) : null)
+                .build();
+    }
+
     @Override
     public User registerUser(User user) {
         log.info("registering user {}", user.getUsername());
-        if (userRepository.existsByUsername(user.getUsername())) {
-            log.warn("username {} already exists.", user.getUsername());
+        // a taken username or email is rejected before paying for the hash, the unique indexes still decide races
+        if (userAvailabilityService.mightHaveUsername(user.getUsername()) && userRepository.existsByUsername(user.getUsername())) {
             throw new UsernameAlreadyExistsException(String.format("Username %s already exists", user.getUsername()));
         }
-        if (userRepository.existsByEmail(user.getEmail())) {
-            log.warn("email {} already exists.", user.getEmail());
+        if (userAvailabilityService.mightHaveEmail(user.getEmail()) && userRepository.existsByEmail(user.getEmail())) {
             throw new EmailAlreadyExistsException(String.format("Email %s already exists", user.getEmail()));
         }
         user.setActive(true);
@@ -64,22 +191,91 @@ public class UserServiceImpl implements UserService {
         user.setRoles(new HashSet<>() {{
             add(Role.USER);
         }});
-        User savedUser = userRepository.save(user);
+        // the hash is computed above, so the transaction only spans the insert and its outbox entry
+        User savedUser = transactionTemplate != null
+                ? transactionTemplate.execute(status -> insertAndPublish(user))
+                : insertAndPublish(user);
+        userPrincipalCache.invalidate(savedUser.getUsername());
+        userAvailabilityService.add(savedUser.getUsername(), savedUser.getEmail());
+        return savedUser;
+    }
+
+    private User insertAndPublish(User user) {
+        User savedUser;
+        try {
+            savedUser = userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
+            throw toAlreadyExistsException(user, e);
+        }
         userEventSender.sendUserCreated(user);
         return savedUser;
     }
 
+    static RuntimeException toAlreadyExistsException(User user, DuplicateKeyException e) {
+        String message = String.valueOf(e.getMessage());
+        if (message.contains(User.EMAIL_INDEX)) {
+            log.warn("email {} already exists.", user.getEmail());
+            return new EmailAlreadyExistsException(String.format("Email %s already exists", user.getEmail()));
+        }
+        if (message.contains(User.USERNAME_INDEX)) {
+            log.warn("username {} already exists.", user.getUsername());
+            return new UsernameAlreadyExistsException(String.format("Username %s already exists", user.getUsername()));
+        }
+        return e;
+    }
+
     @Override
+    @Transactional
+    public User updateProfile(String id, ProfileUpdateRequest request) {
+        if (!request.hasChanges()) {
+            throw new BadRequestException("No profile fields to update");
+        }
+        log.info("update profile of user {}", id);
+        User previous = userRepository.updateProfile(id, request)
+                .orElseThrow(() -> userNotFound(id));
+        User updated = applyProfileUpdate(previous, request);
+        userPrincipalCache.invalidate(updated.getUsername());
+        userEventSender.sendUserUpdated(updated, profilePictureUrl(previous));
+        return updated;
+    }
+
+    @Override
+    @Transactional
     public User updateProfilePicture(String uri, String id) {
         log.info("update profile picture {} for user {}", uri, id);
-        return userRepository.findById(id)
-                .map(user -> {
-                    String oldProfilePic = user.getUserProfile().getProfilePictureUrl();
-                    user.getUserProfile().setProfilePictureUrl(uri);
-                    User savedUser = userRepository.save(user);
-                    userEventSender.sendUserUpdated(savedUser, oldProfilePic);
-                    return savedUser;
-                })
-                .orElseThrow(() -> new ResourceNotFoundException(String.format("User id %s not found", id)));
+        ProfileUpdateRequest request = new ProfileUpdateRequest();
+        request.setProfilePictureUrl(uri);
+        return updateProfile(id, request);
+    }
+
+    static ResourceNotFoundException userNotFound(String id) {
+        return new ResourceNotFoundException(String.format("User id %s not found", id));
+    }
+
+    // the update itself ran atomically in the database, this only mirrors it on the pre-image for the response and event
+    static User applyProfileUpdate(User previous, ProfileUpdateRequest request) {
+        Profile old = previous.getUserProfile();
+        Profile profile = old == null ? new Profile()
+                : new Profile(old.getDisplayName(), old.getProfilePictureUrl(), old.getBirthday(), old.getAddresses());
+        if (request.getDisplayName() != null) {
+            profile.setDisplayName(request.getDisplayName());
+        }
+        if (request.getProfilePictureUrl() != null) {
+            profile.setProfilePictureUrl(request.getProfilePictureUrl());
+        }
+        if (request.getBirthday() != null) {
+            profile.setBirthday(request.getBirthday());
+        }
+        if (request.getAddresses() != null) {
+            profile.setAddresses(request.getAddresses());
+        }
+        User updated = new User(previous);
+        updated.setUserProfile(profile);
+        updated.setDisplayNameKey(SearchKeys.normalize(profile.getDisplayName()));
+        return updated;
+    }
+
+    static String profilePictureUrl(User user) {
+        return user.getUserProfile() == null ? null : user.getUserProfile().getProfilePictureUrl();
     }
 }
@@ -0,0 +1,65 @@
+package com.instagram.auth.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// generic cell rate algorithm: the whole bucket is one timestamp, so taking a token is a single CAS
+public class TokenBucket {
+
+    private final long refillNanos;
+
+    private final long capacityNanos;
+
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(int capacity, long refillNanos, long now) {
+        this.refillNanos = refillNanos;
+        this.capacityNanos = capacity * refillNanos;
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    public boolean tryConsume(long now) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + refillNanos;
+            if (next - now > capacityNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    // takes tokens even when the bucket is empty, but never owes more than a full bucket
+    public void consume(long now, int tokens) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.min(Math.max(current, now) + tokens * refillNanos, now + capacityNanos);
+            if (next <= current || theoreticalArrival.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    // gives back a token taken by tryConsume, a bucket that has refilled in the meantime is left as it is
+    public void release(long now) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            if (current <= now || theoreticalArrival.compareAndSet(current, Math.max(current - refillNanos, now))) {
+                return;
+            }
+        }
+    }
+
+    public boolean isFull(long now) {
+        return theoreticalArrival.get() <= now;
+    }
+
+    public boolean isEmpty(long now) {
+        return Math.max(theoreticalArrival.get(), now) + refillNanos - now > capacityNanos;
+    }
+
+    public long nanosUntilAvailable(long now) {
+        return Math.max(0, theoreticalArrival.get() + refillNanos - capacityNanos - now);
+    }
+}
@@ -0,0 +1,16 @@
+package com.instagram.auth.web.rest;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.util.Map;
+
+@Api(tags = "Key Resource")
+public interface JwksResource {
+    @ApiOperation(value = "Get token verification keys")
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<Map<String, Object>> getJwks();
+}
@@ -0,0 +1,82 @@
+package com.instagram.auth.web.rest;
+
+import com.instagram.auth.domain.*;
+import com.instagram.auth.entity.InstagramUserDetails;
+import com.instagram.auth.entity.User;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.List;
+
+@Validated
+public interface ReactiveUserResource {
+
+    @PostMapping("/signin")
+    Mono<JwtAuthenticationResponse> authenticateUser(@Valid @RequestBody LoginRequest loginRequest, ServerHttpRequest request);
+
+    @PostMapping("/token/revoke")
+    Mono<ApiResponse> revokeToken(@RequestHeader("${security.jwt.header:Authorization}") String authorization);
+
+    @PostMapping("/create")
+    Mono<ResponseEntity<ApiResponse>> createUser(@Valid @RequestBody SignUpRequest signUpRequest, ServerHttpRequest request);
+
+    @PostMapping(value = "/import", consumes = UserResource.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('SERVICE')")
+    Mono<ImportResponse> importUsers(@RequestBody Flux<SignUpRequest> records);
+
+    @PutMapping("/me/picture")
+    @PreAuthorize("hasRole('USER')")
+    Mono<ApiResponse> updateProfilePicture(
+            @RequestBody String profilePicture,
+            @AuthenticationPrincipal InstagramUserDetails userDetails
+    );
+
+    @PatchMapping(value = "/me/profile", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    Mono<UserSummary> updateProfile(
+            @Valid @RequestBody ProfileUpdateRequest profileUpdateRequest,
+            @AuthenticationPrincipal InstagramUserDetails userDetails
+    );
+
+    @GetMapping(value = "/availability", produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<AvailabilityResponse> checkAvailability(
+            @RequestParam(value = "username", required = false) String username,
+            @RequestParam(value = "email", required = false) String email
+    );
+
+    @GetMapping(value = "/{username}", produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<User> findUser(@PathVariable("username") String username);
+
+    @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<UserPage> findAll(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", defaultValue = "100") int size
+    );
+
+    @GetMapping(value = "/all/stream", produces = UserResource.APPLICATION_NDJSON_VALUE)
+    Flux<User> streamAll();
+
+    @GetMapping(value = "/me", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    Mono<UserSummary> getCurrentUser(@AuthenticationPrincipal InstagramUserDetails userDetails);
+
+    @GetMapping(value = "/summary/{username}", produces = MediaType.APPLICATION_JSON_VALUE)
+    Mono<UserSummary> getUserSummary(@PathVariable("username") String username);
+
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    Flux<UserSummary> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit
+    );
+
+    @PostMapping(value = "/summary/in", produces = MediaType.APPLICATION_JSON_VALUE)
+    Flux<UserSummary> getUserSummaries(@RequestBody List<String> usernames);
+}
@@ -1,6 +1,9 @@
 package com.instagram.auth.web.rest;
 
+import com.instagram.auth.domain.AvailabilityResponse;
+import com.instagram.auth.domain.ImportResponse;
 import com.instagram.auth.domain.LoginRequest;
+import com.instagram.auth.domain.ProfileUpdateRequest;
 import com.instagram.auth.domain.SignUpRequest;
 import com.instagram.auth.domain.UserSummary;
 import com.instagram.auth.entity.InstagramUserDetails;
@@ -10,22 +13,34 @@ import io.swagger.annotations.ApiParam;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.annotation.Secured;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.List;
 
 @Api(tags = "User Resource")
 //@RequestMapping("/user")
 @Validated
 public interface UserResource {
+    String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     @ApiOperation(value = "Sign in")
     @PostMapping("/signin")
     ResponseEntity<?> authenticateUser(
-            @ApiParam(value = "Request login body", required = true) @Valid @RequestBody LoginRequest loginRequest
+            @ApiParam(value = "Request login body", required = true) @Valid @RequestBody LoginRequest loginRequest,
+            @ApiParam(hidden = true) HttpServletRequest request
+    );
+
+    @ApiOperation(value = "Revoke the token used for this request")
+    @PostMapping("/token/revoke")
+    ResponseEntity<?> revokeToken(
+            @ApiParam(hidden = true) @RequestHeader("${security.jwt.header:Authorization}") String authorization
     );
 
     @ApiOperation(value = "Create user")
@@ -34,14 +49,39 @@ public interface UserResource {
             @ApiParam(value = "Request create body", required = true) @Valid @RequestBody SignUpRequest signUpRequest
     );
 
+    @ApiOperation(value = "Import users from newline delimited JSON sign-up records")
+    @PostMapping(value = "/import", consumes = APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Secured("ROLE_SERVICE")
+    @ResponseStatus(HttpStatus.OK)
+    ImportResponse importUsers(
+            @ApiParam(hidden = true) HttpServletRequest request
+    ) throws IOException;
+
     @ApiOperation(value = "Update profile picture")
     @PutMapping("/me/picture")
-    @PreAuthorize("hasRole('USER')")
+    @Secured("ROLE_USER")
     ResponseEntity <?> updateProfilePicture(
             @ApiParam(value = "Profile picture url", required = true) @RequestBody String profilePicture,
             @ApiParam(value = "User details", required = true) @AuthenticationPrincipal InstagramUserDetails userDetails
     );
 
+    @ApiOperation(value = "Update profile fields, fields left out are not changed")
+    @PatchMapping(value = "/me/profile", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Secured("ROLE_USER")
+    @ResponseStatus(HttpStatus.OK)
+    UserSummary updateProfile(
+            @ApiParam(value = "Profile fields to update", required = true) @Valid @RequestBody ProfileUpdateRequest profileUpdateRequest,
+            @ApiParam(value = "User details", required = true) @AuthenticationPrincipal InstagramUserDetails userDetails
+    );
+
+    @ApiOperation(value = "Check whether a username or email can still be registered")
+    @GetMapping(value = "/availability", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    AvailabilityResponse checkAvailability(
+            @ApiParam(value = "User name") @RequestParam(value = "username", required = false) String username,
+            @ApiParam(value = "Email") @RequestParam(value = "email", required = false) String email
+    );
+
     @ApiOperation(value = "Find user")
     @GetMapping(value = "/{username}", produces = MediaType.APPLICATION_JSON_VALUE)
     ResponseEntity<?> findUser(
@@ -50,11 +90,18 @@ public interface UserResource {
 
     @ApiOperation(value = "Find all user")
     @GetMapping(value = "/all", produces = MediaType.APPLICATION_JSON_VALUE)
-    ResponseEntity<?> findAll();
+    ResponseEntity<?> findAll(
+            @ApiParam(value = "Cursor returned as next by the previous page") @RequestParam(value = "after", required = false) String after,
+            @ApiParam(value = "Page size") @RequestParam(value = "size", defaultValue = "100") int size
+    );
+
+    @ApiOperation(value = "Stream all users as newline delimited JSON")
+    @GetMapping(value = "/all/stream", produces = APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> streamAll();
 
     @ApiOperation(value = "Get current user")
     @GetMapping(value = "/me", produces = MediaType.APPLICATION_JSON_VALUE)
-    @PreAuthorize("hasRole('USER')")
+    @Secured("ROLE_USER")
     @ResponseStatus(HttpStatus.OK)
     UserSummary getCurrentUser(
             @ApiParam(value = "User details", required = true) @AuthenticationPrincipal InstagramUserDetails userDetails
@@ -66,6 +113,13 @@ public interface UserResource {
             @ApiParam(value = "User name", required = true) @PathVariable("username") String username
     );
 
+    @ApiOperation(value = "Search users by username or display name prefix")
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<?> search(
+            @ApiParam(value = "Prefix, case and accents are ignored", required = true) @RequestParam("q") String query,
+            @ApiParam(value = "Maximum number of results") @RequestParam(value = "limit", defaultValue = "20") int limit
+    );
+
     @ApiOperation(value = "Get user summary in")
     @PostMapping(value = "/summary/in", produces = MediaType.APPLICATION_JSON_VALUE)
     ResponseEntity<?> getUserSummaries(
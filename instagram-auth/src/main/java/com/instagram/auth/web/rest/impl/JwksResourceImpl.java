@@ -0,0 +1,32 @@
+package com.instagram.auth.web.rest.impl;
+
+import com.instagram.auth.config.JwtConfig;
+import com.instagram.auth.config.JwtKeyManager;
+import com.instagram.auth.web.rest.JwksResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+public class JwksResourceImpl implements JwksResource {
+
+    private final JwtKeyManager keyManager;
+
+    private final JwtConfig jwtConfig;
+
+    public JwksResourceImpl(JwtKeyManager keyManager, JwtConfig jwtConfig) {
+        this.keyManager = keyManager;
+        this.jwtConfig = jwtConfig;
+    }
+
+    @Override
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity
+                .ok()
+                .cacheControl(CacheControl.maxAge(jwtConfig.getJwksMaxAge(), TimeUnit.SECONDS).cachePublic())
+                .body(keyManager.getJwks());
+    }
+}
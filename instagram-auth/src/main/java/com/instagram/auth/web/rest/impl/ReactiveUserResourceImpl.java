@@ -0,0 +1,203 @@
+package com.instagram.auth.web.rest.impl;
+
+import com.instagram.auth.config.JwtTokenProvider;
+import com.instagram.auth.domain.*;
+import com.instagram.auth.entity.InstagramUserDetails;
+import com.instagram.auth.entity.Profile;
+import com.instagram.auth.entity.User;
+import com.instagram.auth.exception.BadRequestException;
+import com.instagram.auth.exception.EmailAlreadyExistsException;
+import com.instagram.auth.exception.ResourceNotFoundException;
+import com.instagram.auth.exception.UsernameAlreadyExistsException;
+import com.instagram.auth.service.LoginThrottleService;
+import com.instagram.auth.service.ReactiveUserService;
+import com.instagram.auth.service.TokenRevocationService;
+import com.instagram.auth.service.UserImportService;
+import com.instagram.auth.web.rest.ReactiveUserResource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.Valid;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserResourceImpl implements ReactiveUserResource {
+
+    private final ReactiveUserService userService;
+
+    private final ReactiveAuthenticationManager authenticationManager;
+
+    private final JwtTokenProvider tokenProvider;
+
+    private final TokenRevocationService tokenRevocationService;
+
+    private final LoginThrottleService loginThrottleService;
+
+    private final UserImportService userImportService;
+
+    public ReactiveUserResourceImpl(ReactiveUserService userService, ReactiveAuthenticationManager authenticationManager,
+                                    JwtTokenProvider tokenProvider, TokenRevocationService tokenRevocationService,
+                                    LoginThrottleService loginThrottleService, UserImportService userImportService) {
+        this.userService = userService;
+        this.authenticationManager = authenticationManager;
+        this.tokenProvider = tokenProvider;
+        this.tokenRevocationService = tokenRevocationService;
+        this.loginThrottleService = loginThrottleService;
+        this.userImportService = userImportService;
+    }
+
+    @Override
+    public Mono<JwtAuthenticationResponse> authenticateUser(@Valid LoginRequest loginRequest, ServerHttpRequest request) {
+        String username = loginRequest.getUsername();
+        String clientIp = clientIp(request);
+        // rejected on the event loop before the hash is scheduled
+        return Mono.fromRunnable(() -> loginThrottleService.checkAllowed(username, clientIp))
+                // only an attempt that got past the check holds tokens to keep or give back
+                .then(Mono.defer(() -> authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(
+                                username,
+                                loginRequest.getPassword()
+                        )))
+                        .doOnNext(authentication -> loginThrottleService.loginSucceeded(username, clientIp))
+                        .doOnError(e -> {
+                            if (e instanceof BadCredentialsException) {
+                                loginThrottleService.loginFailed(username, clientIp);
+                            } else {
+                                loginThrottleService.loginAborted(username, clientIp);
+                            }
+                        })
+                        .doOnCancel(() -> loginThrottleService.loginAborted(username, clientIp)))
+                .onErrorMap(AuthenticationException.class, e -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, e.getMessage()))
+                .map(authentication -> new JwtAuthenticationResponse(tokenProvider.generateToken(authentication)));
+    }
+
+    @Override
+    public Mono<ApiResponse> revokeToken(String authorization) {
+        // the revocation is persisted with the blocking repository
+        return Mono.fromCallable(() -> {
+            tokenRevocationService.revoke(tokenProvider.verifyAuthorizationHeader(authorization)
+                    .orElseThrow(() -> new BadRequestException("Invalid token")));
+            return new ApiResponse(true, "Token revoked successfully");
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Mono<ResponseEntity<ApiResponse>> createUser(@Valid SignUpRequest signUpRequest, ServerHttpRequest request) {
+        User user = User.builder()
+                .email(signUpRequest.getEmail())
+                .username(signUpRequest.getUsername())
+                .password(signUpRequest.getPassword())
+                .userProfile(Profile.builder()
+                        .displayName(signUpRequest.getName())
+                        .build())
+                .build();
+        return userService.registerUser(user)
+                .onErrorMap(e -> e instanceof UsernameAlreadyExistsException || e instanceof EmailAlreadyExistsException,
+                        e -> new BadRequestException(e.getMessage()))
+                .map(savedUser -> {
+                    URI location = UriComponentsBuilder
+                            .fromHttpRequest(request)
+                            .replacePath(request.getPath().contextPath().value())
+                            .path("/{username}")
+                            .replaceQuery(null)
+                            .buildAndExpand(savedUser.getUsername()).toUri();
+                    return ResponseEntity
+                            .created(location)
+                            .body(new ApiResponse(true, "User registered successfully"));
+                });
+    }
+
+    // a malformed line fails the decoding of the whole body, batches before it stay imported
+    @Override
+    public Mono<ImportResponse> importUsers(Flux<SignUpRequest> records) {
+        int batchSize = userImportService.getBatchSize();
+        return records.buffer(batchSize)
+                .index()
+                .concatMap(batch -> Mono.fromCallable(() -> userImportService.importUsers(batch.getT2(), batch.getT1() * batchSize + 1))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .reduce(userImportService::merge)
+                .defaultIfEmpty(new ImportResponse());
+    }
+
+    @Override
+    public Mono<ApiResponse> updateProfilePicture(String profilePicture, InstagramUserDetails userDetails) {
+        return userService.updateProfilePicture(profilePicture, userDetails.getId())
+                .thenReturn(new ApiResponse(true, "Profile picture updated successfully"));
+    }
+
+    @Override
+    public Mono<UserSummary> updateProfile(ProfileUpdateRequest profileUpdateRequest, InstagramUserDetails userDetails) {
+        return userService.updateProfile(userDetails.getId(), profileUpdateRequest)
+                .map(UserResourceImpl::convertTo);
+    }
+
+    @Override
+    public Mono<User> findUser(String username) {
+        return userService.findByUsername(username)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new ResourceNotFoundException(username))));
+    }
+
+    @Override
+    public Mono<UserPage> findAll(String after, int size) {
+        return userService.findAll(after, size);
+    }
+
+    @Override
+    public Flux<User> streamAll() {
+        return userService.streamAll();
+    }
+
+    @Override
+    public Mono<UserSummary> getCurrentUser(InstagramUserDetails userDetails) {
+        return Mono.just(UserSummary.builder()
+                .id(userDetails.getId())
+                .username(userDetails.getUsername())
+                .name(userDetails.getUserProfile().getDisplayName())
+                .profilePicture(userDetails.getUserProfile().getProfilePictureUrl())
+                .build());
+    }
+
+    @Override
+    public Mono<AvailabilityResponse> checkAvailability(String username, String email) {
+        return userService.checkAvailability(username, email);
+    }
+
+    @Override
+    public Mono<UserSummary> getUserSummary(String username) {
+        return userService.findByUsername(username)
+                .map(UserResourceImpl::convertTo)
+                .switchIfEmpty(Mono.defer(() -> Mono.error(new ResourceNotFoundException(username))));
+    }
+
+    @Override
+    public Flux<UserSummary> search(String query, int limit) {
+        return userService.search(query, limit);
+    }
+
+    @Override
+    public Flux<UserSummary> getUserSummaries(List<String> usernames) {
+        return userService.findSummariesByUsernameIn(usernames);
+    }
+
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress()
+                : "unknown";
+    }
+}
@@ -1,5 +1,9 @@
 package com.instagram.auth.web.rest.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.instagram.auth.config.JwtTokenProvider;
 import com.instagram.auth.domain.*;
 import com.instagram.auth.entity.InstagramUserDetails;
@@ -9,22 +13,32 @@ import com.instagram.auth.exception.BadRequestException;
 import com.instagram.auth.exception.EmailAlreadyExistsException;
 import com.instagram.auth.exception.ResourceNotFoundException;
 import com.instagram.auth.exception.UsernameAlreadyExistsException;
+import com.instagram.auth.service.LoginThrottleService;
+import com.instagram.auth.service.TokenRevocationService;
+import com.instagram.auth.service.UserImportService;
 import com.instagram.auth.service.UserService;
 import com.instagram.auth.web.rest.UserResource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserResourceImpl implements UserResource {
 
     private final UserService userService;
@@ -33,26 +47,62 @@ public class UserResourceImpl implements UserResource {
 
     private final JwtTokenProvider tokenProvider;
 
+    private final TokenRevocationService tokenRevocationService;
+
+    private final LoginThrottleService loginThrottleService;
+
+    private final UserImportService userImportService;
+
+    private final ObjectWriter ndjsonWriter;
+
     public UserResourceImpl(UserService userService, AuthenticationManager authenticationManager,
-                            JwtTokenProvider tokenProvider) {
+                            JwtTokenProvider tokenProvider, TokenRevocationService tokenRevocationService,
+                            LoginThrottleService loginThrottleService, UserImportService userImportService,
+                            ObjectMapper objectMapper) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.tokenProvider = tokenProvider;
+        this.tokenRevocationService = tokenRevocationService;
+        this.loginThrottleService = loginThrottleService;
+        this.userImportService = userImportService;
+        this.ndjsonWriter = objectMapper.writerFor(User.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @Override
-    public ResponseEntity<?> authenticateUser(@Valid LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getUsername(),
-                        loginRequest.getPassword()
-                )
-        );
+    public ResponseEntity<?> authenticateUser(@Valid LoginRequest loginRequest, HttpServletRequest request) {
+        String clientIp = request.getRemoteAddr();
+        // rejected before any password hash is computed
+        loginThrottleService.checkAllowed(loginRequest.getUsername(), clientIp);
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getUsername(),
+                            loginRequest.getPassword()
+                    )
+            );
+        } catch (BadCredentialsException e) {
+            loginThrottleService.loginFailed(loginRequest.getUsername(), clientIp);
+            throw e;
+        } catch (RuntimeException e) {
+            loginThrottleService.loginAborted(loginRequest.getUsername(), clientIp);
+            throw e;
+        }
+        loginThrottleService.loginSucceeded(loginRequest.getUsername(), clientIp);
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = tokenProvider.generateToken(authentication);
         return ResponseEntity.ok(new JwtAuthenticationResponse(jwt));
     }
 
+    @Override
+    public ResponseEntity<?> revokeToken(String authorization) {
+        tokenRevocationService.revoke(tokenProvider.verifyAuthorizationHeader(authorization)
+                .orElseThrow(() -> new BadRequestException("Invalid token")));
+        return ResponseEntity.ok(new ApiResponse(true, "Token revoked successfully"));
+    }
+
     @Override
     public ResponseEntity<?> createUser(@Valid SignUpRequest signUpRequest) {
         User user = User.builder()
@@ -77,6 +127,11 @@ public class UserResourceImpl implements UserResource {
                 .body(new ApiResponse(true, "User registered successfully"));
     }
 
+    @Override
+    public ImportResponse importUsers(HttpServletRequest request) throws IOException {
+        return userImportService.importUsers(request.getInputStream());
+    }
+
     @Override
     public ResponseEntity<?> updateProfilePicture(String profilePicture, InstagramUserDetails userDetails) {
         userService.updateProfilePicture(profilePicture, userDetails.getId());
@@ -85,6 +140,11 @@ public class UserResourceImpl implements UserResource {
                 .body(new ApiResponse(true, "Profile picture updated successfully"));
     }
 
+    @Override
+    public UserSummary updateProfile(ProfileUpdateRequest profileUpdateRequest, InstagramUserDetails userDetails) {
+        return convertTo(userService.updateProfile(userDetails.getId(), profileUpdateRequest));
+    }
+
     @Override
     public ResponseEntity<?> findUser(String username) {
         return userService.findByUsername(username)
@@ -93,8 +153,31 @@ public class UserResourceImpl implements UserResource {
     }
 
     @Override
-    public ResponseEntity<?> findAll() {
-        return ResponseEntity.ok(userService.findAll());
+    public ResponseEntity<?> findAll(String after, int size) {
+        return ResponseEntity.ok(userService.findAll(after, size));
+    }
+
+    @Override
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = outputStream -> {
+            SequenceWriter writer = ndjsonWriter.writeValues(outputStream);
+            long count = userService.streamAll(user -> {
+                try {
+                    writer.write(user);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            if (count > 0) {
+                outputStream.write('\n');
+            }
+            outputStream.flush();
+        };
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
     }
 
     @Override
@@ -107,6 +190,11 @@ public class UserResourceImpl implements UserResource {
                 .build();
     }
 
+    @Override
+    public AvailabilityResponse checkAvailability(String username, String email) {
+        return userService.checkAvailability(username, email);
+    }
+
     @Override
     public ResponseEntity<?> getUserSummary(String username) {
         return userService.findByUsername(username)
@@ -114,16 +202,17 @@ public class UserResourceImpl implements UserResource {
                 .orElseThrow(() -> new ResourceNotFoundException(username));
     }
 
+    @Override
+    public ResponseEntity<?> search(String query, int limit) {
+        return ResponseEntity.ok(userService.search(query, limit));
+    }
+
     @Override
     public ResponseEntity<?> getUserSummaries(List<String> usernames) {
-        List<UserSummary> userSummaries = userService.findByUsernameIn(usernames)
-                .stream()
-                .map(this::convertTo)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(userSummaries);
+        return ResponseEntity.ok(userService.findSummariesByUsernameIn(usernames));
     }
 
-    private UserSummary convertTo(User user) {
+    static UserSummary convertTo(User user) {
         return UserSummary
                 .builder()
                 .id(user.getId())
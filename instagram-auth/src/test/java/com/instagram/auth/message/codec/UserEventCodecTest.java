@@ -0,0 +1,163 @@
+package com.instagram.auth.message.codec;
+
+import com.instagram.auth.domain.UserEventResponse;
+import com.instagram.auth.message.UserEventType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserEventCodecTest {
+
+    private final UserEventCodec codec = new UserEventCodec(new UserEventSchemaRegistry());
+
+    @Test
+    void roundTripsEveryField() {
+        UserEventResponse event = UserEventResponse.builder()
+                .id("5f0c8a1e2b3c4d5e6f708192")
+                .username("jane")
+                .email("jane@example.com")
+                .displayName("J\u00e4ne D\u0153 \ud83d\ude42")
+                .profilePictureUrl("https://cdn.example.com/new.jpg")
+                .oldProfilePicUrl("https://cdn.example.com/old.jpg")
+                .eventType(UserEventType.UPDATED)
+                .build();
+
+        assertThat(codec.decode(codec.encode(event))).isEqualTo(event);
+    }
+
+    @Test
+    void keepsNullAndEmptyStringsApart() {
+        UserEventResponse event = UserEventResponse.builder()
+                .id("1")
+                .username("")
+                .eventType(UserEventType.CREATED)
+                .build();
+
+        UserEventResponse decoded = codec.decode(codec.encode(event));
+
+        assertThat(decoded.getUsername()).isEmpty();
+        assertThat(decoded.getEmail()).isNull();
+        assertThat(decoded).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsAnEventWithoutFields() {
+        UserEventResponse event = new UserEventResponse();
+
+        byte[] bytes = codec.encode(event);
+
+        assertThat(bytes.length).isEqualTo(2);
+        assertThat(codec.decode(bytes)).isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsStringsAroundTheVarintLengthBoundaries() {
+        for (int length : new int[]{127, 128, 16383, 16384}) {
+            char[] chars = new char[length];
+            Arrays.fill(chars, 'a');
+            UserEventResponse event = UserEventResponse.builder().displayName(new String(chars)).build();
+
+            assertThat(codec.decode(codec.encode(event))).as("length %d", length).isEqualTo(event);
+        }
+    }
+
+    @Test
+    void varintsUseOneByteUpTo127AndFiveForNegatives() {
+        assertVarint(0, 1);
+        assertVarint(1, 1);
+        assertVarint(127, 1);
+        assertVarint(128, 2);
+        assertVarint(16383, 2);
+        assertVarint(16384, 3);
+        assertVarint(2097151, 3);
+        assertVarint(2097152, 4);
+        assertVarint(268435455, 4);
+        assertVarint(268435456, 5);
+        assertVarint(Integer.MAX_VALUE, 5);
+        assertVarint(-1, 5);
+        assertVarint(Integer.MIN_VALUE, 5);
+    }
+
+    @Test
+    void rejectsVarintsLongerThanFiveBytes() {
+        byte[] bytes = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+
+        assertThatThrownBy(() -> new UserEventCodec.Input(bytes).readVarint())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsInputThatIsNotAUserEvent() {
+        assertThatThrownBy(() -> codec.decode(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> codec.decode(new byte[]{0x7B, 0x7D})).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void failsCleanlyOnEveryTruncation() {
+        UserEventResponse event = UserEventResponse.builder()
+                .id("1")
+                .username("jane")
+                .displayName(new String(new char[200]).replace('\0', 'x'))
+                .eventType(UserEventType.CREATED)
+                .build();
+        byte[] bytes = codec.encode(event);
+
+        // a cut between two fields still reads as an event with fewer fields, any other cut must be rejected
+        for (int length = 0; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            try {
+                codec.decode(truncated);
+            } catch (IllegalArgumentException expected) {
+                // the only failure a consumer has to handle
+            }
+        }
+        assertThatThrownBy(() -> codec.decode(Arrays.copyOf(bytes, bytes.length - 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsLengthsPastTheEndOfTheInput() {
+        UserEventCodec.Output output = new UserEventCodec.Output(16);
+        output.writeByte(UserEventCodec.MAGIC);
+        output.writeVarint(UserEventSchemaRegistry.CURRENT_VERSION);
+        output.writeVarint(1 << 3 | 2);
+        output.writeVarint(Integer.MAX_VALUE);
+        output.writeByte('x');
+        byte[] bytes = output.toByteArray();
+
+        assertThatThrownBy(() -> codec.decode(bytes)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void skipsFieldsUnknownToTheSchema() {
+        UserEventCodec.Output output = new UserEventCodec.Output(16);
+        output.writeByte(UserEventCodec.MAGIC);
+        output.writeVarint(UserEventSchemaRegistry.CURRENT_VERSION);
+        output.writeVarint(99 << 3 | 2);
+        output.writeVarint(1);
+        output.writeByte('x');
+        output.writeVarint(99 << 3);
+        output.writeVarint(300);
+        output.writeVarint(2 << 3 | 2);
+        output.writeVarint(4);
+        output.writeBytes("jane".getBytes());
+
+        UserEventResponse decoded = codec.decode(output.toByteArray());
+
+        assertThat(decoded).isEqualTo(UserEventResponse.builder().username("jane").build());
+    }
+
+    private static void assertVarint(int value, int expectedBytes) {
+        UserEventCodec.Output output = new UserEventCodec.Output(1);
+        output.writeVarint(value);
+        byte[] bytes = output.toByteArray();
+        UserEventCodec.Input input = new UserEventCodec.Input(bytes);
+
+        assertThat(bytes.length).as("bytes for %d", value).isEqualTo(expectedBytes);
+        assertThat(input.readVarint()).isEqualTo(value);
+        assertThat(input.hasRemaining()).isFalse();
+    }
+}
@@ -0,0 +1,82 @@
+package com.instagram.auth.message.impl;
+
+import com.instagram.auth.domain.UserEventResponse;
+import com.instagram.auth.message.UserEventType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserEventCoalescerTest {
+
+    @Test
+    void mergeKeepsTheLatestStateAndTheFirstOldPicture() {
+        UserEventResponse earlier = updated("1", "Jane", "b.jpg", "a.jpg");
+        UserEventResponse later = updated("1", "Jane D", "c.jpg", "b.jpg");
+
+        UserEventResponse merged = UserEventCoalescer.merge(earlier, later);
+
+        assertThat(merged).isEqualTo(updated("1", "Jane D", "c.jpg", "a.jpg"));
+    }
+
+    @Test
+    void mergeKeepsAMissingOldPicture() {
+        UserEventResponse earlier = updated("1", "Jane", "b.jpg", null);
+        UserEventResponse later = updated("1", "Jane", "c.jpg", "b.jpg");
+
+        UserEventResponse merged = UserEventCoalescer.merge(earlier, later);
+
+        assertThat(merged.getProfilePictureUrl()).isEqualTo("c.jpg");
+        assertThat(merged.getOldProfilePicUrl()).isNull();
+    }
+
+    @Test
+    void coalescesUpdatesOfTheSameUserWithinTheWindow() {
+        List<UserEventResponse> sent = new ArrayList<>();
+        Counter coalesced = new SimpleMeterRegistry().counter("user.events.coalesced");
+        UserEventCoalescer coalescer = new UserEventCoalescer(60_000, sent::add, coalesced);
+
+        coalescer.offer(updated("1", "Jane", "b.jpg", "a.jpg"));
+        coalescer.offer(updated("1", "Jane", "c.jpg", "b.jpg"));
+        coalescer.offer(updated("2", "John", "x.jpg", null));
+        assertThat(sent).isEmpty();
+
+        coalescer.shutdown();
+
+        assertThat(sent).containsExactlyInAnyOrder(
+                updated("1", "Jane", "c.jpg", "a.jpg"),
+                updated("2", "John", "x.jpg", null));
+        assertThat(coalesced.count()).isEqualTo(1);
+    }
+
+    @Test
+    void otherEventsFlushThePendingUpdateFirst() {
+        List<UserEventResponse> sent = new ArrayList<>();
+        UserEventCoalescer coalescer = new UserEventCoalescer(60_000, sent::add,
+                new SimpleMeterRegistry().counter("user.events.coalesced"));
+        UserEventResponse update = updated("1", "Jane", "b.jpg", "a.jpg");
+        UserEventResponse created = UserEventResponse.builder().id("1").eventType(UserEventType.CREATED).build();
+
+        coalescer.offer(update);
+        coalescer.offer(created);
+
+        assertThat(sent).containsExactly(update, created);
+        coalescer.shutdown();
+        assertThat(sent).hasSize(2);
+    }
+
+    private static UserEventResponse updated(String id, String displayName, String picture, String oldPicture) {
+        return UserEventResponse.builder()
+                .id(id)
+                .eventType(UserEventType.UPDATED)
+                .username("user" + id)
+                .displayName(displayName)
+                .profilePictureUrl(picture)
+                .oldProfilePicUrl(oldPicture)
+                .build();
+    }
+}
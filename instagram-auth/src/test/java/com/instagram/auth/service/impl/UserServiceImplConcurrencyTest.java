@@ -0,0 +1,115 @@
+package com.instagram.auth.service.impl;
+
+import com.instagram.auth.config.MongoIndexInitializer;
+import com.instagram.auth.entity.Profile;
+import com.instagram.auth.entity.User;
+import com.instagram.auth.exception.EmailAlreadyExistsException;
+import com.instagram.auth.exception.UsernameAlreadyExistsException;
+import com.instagram.auth.message.UserEventSender;
+import com.instagram.auth.repository.UserRepository;
+import com.instagram.auth.service.UserAvailabilityService;
+import com.instagram.auth.service.UserPrincipalCache;
+import com.instagram.auth.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@DataMongoTest(properties = "spring.cloud.config.enabled=false")
+@Import({UserServiceImpl.class, MongoIndexInitializer.class})
+class UserServiceImplConcurrencyTest {
+
+    private static final int ATTEMPTS = 16;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockBean
+    private PasswordEncoder passwordEncoder;
+
+    @MockBean
+    private UserEventSender userEventSender;
+
+    @MockBean
+    private UserPrincipalCache userPrincipalCache;
+
+    @MockBean(name = "summaryLookupExecutor")
+    private Executor summaryLookupExecutor;
+
+    @MockBean
+    private UserAvailabilityService userAvailabilityService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> "{noop}" + invocation.getArgument(0));
+    }
+
+    @Test
+    void concurrentSignupsWithSameUsernameRegisterOnce() throws Exception {
+        long registered = registerConcurrently(attempt -> newUser("racer", "racer" + attempt + "@example.com"));
+
+        assertThat(registered).isEqualTo(1);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentSignupsWithSameEmailRegisterOnce() throws Exception {
+        long registered = registerConcurrently(attempt -> newUser("racer" + attempt, "racer@example.com"));
+
+        assertThat(registered).isEqualTo(1);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
+    private long registerConcurrently(IntFunction<User> users) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(ATTEMPTS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            User user = users.apply(i);
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    userService.registerUser(user);
+                    return true;
+                } catch (UsernameAlreadyExistsException | EmailAlreadyExistsException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+
+        long registered = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                registered++;
+            }
+        }
+        pool.shutdown();
+        return registered;
+    }
+
+    private static User newUser(String username, String email) {
+        return User.builder()
+                .username(username)
+                .email(email)
+                .password("password")
+                .userProfile(Profile.builder().displayName(username).build())
+                .build();
+    }
+}
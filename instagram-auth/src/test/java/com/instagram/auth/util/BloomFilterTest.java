@@ -0,0 +1,101 @@
+package com.instagram.auth.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    private static final int CAPACITY = 100_000;
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    @Test
+    void containsEveryValuePut() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_PROBABILITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("user" + i);
+        }
+
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(filter.mightContain("user" + i)).as("user%d", i).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateAtCapacityStaysNearConfiguredRate() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_PROBABILITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (filter.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+
+        double rate = (double) falsePositives / CAPACITY;
+        assertThat(rate).isLessThan(FALSE_POSITIVE_PROBABILITY * 1.5);
+        // word rounding and a whole number of hash functions put the design rate slightly off the configured one
+        assertThat(filter.expectedFalsePositiveProbability(CAPACITY)).isLessThan(FALSE_POSITIVE_PROBABILITY * 1.1);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(CAPACITY, FALSE_POSITIVE_PROBABILITY);
+
+        assertThat(filter.mightContain("user0")).isFalse();
+        assertThat(filter.mightContain("")).isFalse();
+        assertThat(filter.expectedFalsePositiveProbability(0)).isZero();
+    }
+
+    @Test
+    void zeroCapacityIsSizedLikeCapacityOne() {
+        BloomFilter empty = new BloomFilter(0, FALSE_POSITIVE_PROBABILITY);
+        BloomFilter single = new BloomFilter(1, FALSE_POSITIVE_PROBABILITY);
+
+        assertThat(empty.bitSize()).isEqualTo(single.bitSize()).isEqualTo(64);
+        assertThat(empty.hashFunctions()).isEqualTo(single.hashFunctions()).isPositive();
+
+        empty.put("only");
+        assertThat(empty.mightContain("only")).isTrue();
+    }
+
+    @Test
+    void outgrownFilterStillHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1, FALSE_POSITIVE_PROBABILITY);
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("user" + i);
+        }
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(filter.mightContain("user" + i)).isTrue();
+        }
+        assertThat(filter.expectedFalsePositiveProbability(1_000)).isGreaterThan(FALSE_POSITIVE_PROBABILITY);
+    }
+
+    @Test
+    void lowerFalsePositiveProbabilityUsesMoreBitsAndHashes() {
+        BloomFilter loose = new BloomFilter(CAPACITY, 0.1);
+        BloomFilter strict = new BloomFilter(CAPACITY, 0.0001);
+
+        assertThat(strict.bitSize()).isGreaterThan(loose.bitSize());
+        assertThat(strict.hashFunctions()).isGreaterThan(loose.hashFunctions());
+    }
+
+    @Test
+    void rejectsFalsePositiveProbabilityOutsideTheOpenUnitInterval() {
+        assertThatThrownBy(() -> new BloomFilter(CAPACITY, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(CAPACITY, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(CAPACITY, -0.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(CAPACITY, Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsNegativeCapacity() {
+        assertThatThrownBy(() -> new BloomFilter(-1, FALSE_POSITIVE_PROBABILITY)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,117 @@
+package com.instagram.auth.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final int CAPACITY = 5;
+
+    private static final long REFILL_NANOS = 1_000;
+
+    private static final long START = 1_000_000;
+
+    @Test
+    void allowsAFullBurstFromANewBucket() {
+        TokenBucket bucket = new TokenBucket(CAPACITY, REFILL_NANOS, START);
+
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(bucket.tryConsume(START)).as("token %d", i).isTrue();
+        }
+        assertThat(bucket.tryConsume(START)).isFalse();
+        assertThat(bucket.isEmpty(START)).isTrue();
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        TokenBucket bucket = emptyBucket();
+
+        assertThat(bucket.nanosUntilAvailable(START)).isEqualTo(REFILL_NANOS);
+        assertThat(bucket.tryConsume(START + REFILL_NANOS - 1)).isFalse();
+        assertThat(bucket.nanosUntilAvailable(START + REFILL_NANOS - 1)).isEqualTo(1);
+
+        assertThat(bucket.tryConsume(START + REFILL_NANOS)).isTrue();
+        assertThat(bucket.tryConsume(START + REFILL_NANOS)).isFalse();
+    }
+
+    @Test
+    void refillsNoMoreThanCapacityAfterIdling() {
+        TokenBucket bucket = emptyBucket();
+        long later = START + 100 * REFILL_NANOS;
+
+        assertThat(bucket.isEmpty(later)).isFalse();
+        assertThat(bucket.nanosUntilAvailable(later)).isZero();
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(bucket.tryConsume(later)).isTrue();
+        }
+        assertThat(bucket.tryConsume(later)).isFalse();
+    }
+
+    @Test
+    void rejectionDoesNotTakeATokenOrDelayTheRefill() {
+        TokenBucket bucket = emptyBucket();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(bucket.tryConsume(START)).isFalse();
+        }
+        assertThat(bucket.nanosUntilAvailable(START)).isEqualTo(REFILL_NANOS);
+    }
+
+    @Test
+    void consumeEmptiesTheBucketButNeverOwesMoreThanAFullBucket() {
+        TokenBucket bucket = new TokenBucket(CAPACITY, REFILL_NANOS, START);
+
+        bucket.consume(START, CAPACITY - 1);
+        assertThat(bucket.isEmpty(START)).isFalse();
+
+        bucket.consume(START, 100);
+        assertThat(bucket.isEmpty(START)).isTrue();
+        assertThat(bucket.nanosUntilAvailable(START)).isEqualTo(REFILL_NANOS);
+
+        assertThat(bucket.isEmpty(START + CAPACITY * REFILL_NANOS)).isFalse();
+    }
+
+    @Test
+    void releaseGivesBackATakenToken() {
+        TokenBucket bucket = emptyBucket();
+
+        bucket.release(START);
+
+        assertThat(bucket.tryConsume(START)).isTrue();
+        assertThat(bucket.tryConsume(START)).isFalse();
+    }
+
+    @Test
+    void releaseNeverOverfillsTheBucket() {
+        TokenBucket bucket = new TokenBucket(CAPACITY, REFILL_NANOS, START);
+        bucket.tryConsume(START);
+
+        bucket.release(START);
+        bucket.release(START);
+
+        assertThat(bucket.isFull(START)).isTrue();
+        for (int i = 0; i < CAPACITY; i++) {
+            assertThat(bucket.tryConsume(START)).isTrue();
+        }
+        assertThat(bucket.tryConsume(START)).isFalse();
+    }
+
+    @Test
+    void isFullOnceEveryTakenTokenHasRefilled() {
+        TokenBucket bucket = new TokenBucket(CAPACITY, REFILL_NANOS, START);
+        bucket.tryConsume(START);
+        bucket.tryConsume(START);
+
+        assertThat(bucket.isFull(START + REFILL_NANOS)).isFalse();
+        assertThat(bucket.isFull(START + 2 * REFILL_NANOS)).isTrue();
+    }
+
+    private static TokenBucket emptyBucket() {
+        TokenBucket bucket = new TokenBucket(CAPACITY, REFILL_NANOS, START);
+        for (int i = 0; i < CAPACITY; i++) {
+            bucket.tryConsume(START);
+        }
+        return bucket;
+    }
+}